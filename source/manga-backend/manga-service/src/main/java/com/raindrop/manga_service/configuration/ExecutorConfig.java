@@ -0,0 +1,32 @@
+package com.raindrop.manga_service.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class ExecutorConfig {
+
+    @Value("${app.chapter.page-upload.concurrency:6}")
+    private int pageUploadConcurrency;
+
+    /**
+     * Pool upload trang chapter song song, dùng chung cho mọi request
+     * nên tổng số request đồng thời tới upload-service bị giới hạn
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService pageUploadExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "page-upload-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(pageUploadConcurrency, threadFactory);
+    }
+}
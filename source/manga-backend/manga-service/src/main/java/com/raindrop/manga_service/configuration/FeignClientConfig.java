@@ -32,6 +32,12 @@ public class FeignClientConfig {
     @Value("${feign.client.config.upload-service.readTimeout:60000}")
     private int readTimeout;
 
+    @Value("${feign.httpclient.max-connections:200}")
+    private int maxConnections;
+
+    @Value("${feign.httpclient.max-connections-per-route:50}")
+    private int maxConnectionsPerRoute;
+
     @Value("${spring.servlet.multipart.max-file-size:50MB}")
     private String maxFileSize;
 
@@ -52,6 +58,8 @@ public class FeignClientConfig {
 
         CloseableHttpClient httpClient = HttpClientBuilder.create()
                 .setDefaultRequestConfig(requestConfig)
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute) // Cho phép upload song song nhiều trang
                 .disableContentCompression() // Tắt nén để xử lý file lớn
                 .build();
 
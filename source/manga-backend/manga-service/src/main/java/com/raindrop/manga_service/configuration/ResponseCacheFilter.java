@@ -0,0 +1,177 @@
+package com.raindrop.manga_service.configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.raindrop.manga_service.event.GenreChangedEvent;
+import com.raindrop.manga_service.event.MangaChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache byte của response JSON cho các endpoint đọc nhiều (/mangas/summaries, /genres,
+ * /chapters/manga/{mangaId}) theo đường dẫn và query. Response được lưu sẵn cả bản gốc lẫn
+ * bản gzip cùng ETag, request trùng chỉ còn là ghi mảng byte có sẵn (hoặc 304).
+ * Entry bị xoá khi catalog thay đổi (MangaChangedEvent, GenreChangedEvent).
+ */
+@Component
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class ResponseCacheFilter extends OncePerRequestFilter {
+    private static final String SUMMARIES_PATH = "/mangas/summaries";
+    private static final String GENRES_PATH = "/genres";
+    private static final String CHAPTERS_BY_MANGA_PREFIX = "/chapters/manga/";
+    private static final Pattern CHAPTERS_BY_MANGA = Pattern.compile("^/chapters/manga/[^/]+$");
+    // Response nhỏ hơn ngưỡng này không đáng để nén
+    private static final int MIN_GZIP_BYTES = 1024;
+
+    Cache<String, CachedResponse> cache;
+    // Tăng mỗi lần xoá cache; response được tạo trước lần xoá thì không được lưu vào cache
+    AtomicLong generation = new AtomicLong();
+
+    public ResponseCacheFilter(@Value("${app.cache.responses.max-bytes:64MB}") String maxBytes,
+                               @Value("${app.cache.responses.ttl:5m}") Duration ttl,
+                               MeterRegistry registry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(DataSize.parse(maxBytes).toBytes())
+                .weigher((String key, CachedResponse value) -> value.weight())
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "manga.responses");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            return true;
+        }
+        String path = path(request);
+        return !path.equals(SUMMARIES_PATH) && !path.equals(GENRES_PATH)
+                && !CHAPTERS_BY_MANGA.matcher(path).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = cacheKey(request);
+        CachedResponse cached = cache.getIfPresent(key);
+        if (cached == null) {
+            long startGeneration = generation.get();
+            ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+            filterChain.doFilter(request, wrapper);
+            if (wrapper.getStatus() != HttpServletResponse.SC_OK) {
+                wrapper.copyBodyToResponse();
+                return;
+            }
+            cached = CachedResponse.of(wrapper.getContentAsByteArray(), wrapper.getContentType());
+            if (generation.get() == startGeneration) {
+                cache.put(key, cached);
+            }
+        }
+        write(request, response, cached);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMangaChanged(MangaChangedEvent event) {
+        invalidate(SUMMARIES_PATH + "?", CHAPTERS_BY_MANGA_PREFIX + event.mangaId() + "?");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGenreChanged(GenreChangedEvent event) {
+        invalidate(GENRES_PATH + "?");
+    }
+
+    private void invalidate(String... prefixes) {
+        generation.incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> Arrays.stream(prefixes).anyMatch(key::startsWith));
+    }
+
+    private void write(HttpServletRequest request, HttpServletResponse response, CachedResponse cached)
+            throws IOException {
+        response.setHeader(HttpHeaders.ETAG, cached.etag());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        // Trình duyệt được lưu nhưng phải hỏi lại server, và nhận 304 khi ETag chưa đổi
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && Arrays.stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .anyMatch(tag -> tag.equals(cached.etag()) || tag.equals("W/" + cached.etag()))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        byte[] body = cached.body();
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (cached.gzip() != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            body = cached.gzip();
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        if (cached.contentType() != null) {
+            response.setContentType(cached.contentType());
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * Khoá gồm đường dẫn và query đã sắp xếp theo tên tham số, luôn có dấu "?"
+     * để xoá theo tiền tố không nhầm sang đường dẫn khác
+     */
+    private String cacheKey(HttpServletRequest request) {
+        String query = request.getParameterMap().entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> entry.getKey() + "=" + String.join(",", entry.getValue()))
+                .collect(Collectors.joining("&"));
+        return path(request) + "?" + query;
+    }
+
+    private String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private record CachedResponse(byte[] body, byte[] gzip, String etag, String contentType) {
+        static CachedResponse of(byte[] body, String contentType) {
+            byte[] gzip = null;
+            if (body.length >= MIN_GZIP_BYTES) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+                try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+                    gzipOut.write(body);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                gzip = out.toByteArray();
+            }
+            return new CachedResponse(body, gzip, "\"" + DigestUtils.md5DigestAsHex(body) + "\"", contentType);
+        }
+
+        int weight() {
+            return body.length + (gzip == null ? 0 : gzip.length);
+        }
+    }
+}
@@ -22,11 +22,16 @@ public class SecurityConfig {
             "/mangas",
             "/mangas/paginated",
             "/mangas/summaries",
+            "/mangas/summaries/cursor",
+            "/mangas/paginated/cursor",
+            "/mangas/search",
+            "/mangas/suggest",
+            "/mangas/trending",
             "/mangas/{id}",
             "/chapters",
             "/chapters/{id}",
-            "/chapters/{id}/view",
             "/chapters/manga/{mangaId}",
+            "/chapters/manga/{mangaId}/cursor",
             "/chapters/manga",
             "/genres",
             "/genres/{id}",
@@ -40,6 +45,8 @@ public class SecurityConfig {
     public SecurityFilterChain filterChain(HttpSecurity httpSecurity) throws Exception {
         httpSecurity.authorizeHttpRequests(request ->
                 request.requestMatchers(HttpMethod.GET, PUBLIC_ENDPOINTS).permitAll()
+                        // Người đọc chưa đăng nhập cũng được tính lượt xem (theo IP client do proxy tin cậy chuyển tiếp)
+                        .requestMatchers(HttpMethod.POST, "/chapters/{id}/view").permitAll()
                         .requestMatchers(HttpMethod.POST, "/mangas", "/chapters", "/genres").hasAuthority("ROLE_ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/mangas/{id}", "/chapters/{id}", "/genres/{id}").hasAuthority("ROLE_ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/mangas/{id}", "/chapters/{id}", "/genres/{id}").hasAuthority("ROLE_ADMIN")
@@ -4,8 +4,11 @@ import com.raindrop.manga_service.dto.request.ChapterRequest;
 import com.raindrop.manga_service.dto.request.MangaRequest;
 import com.raindrop.manga_service.dto.response.ApiResponse;
 import com.raindrop.manga_service.dto.response.ChapterResponse;
+import com.raindrop.manga_service.dto.response.CursorPageResponse;
 import com.raindrop.manga_service.repository.ChapterRepository;
 import com.raindrop.manga_service.service.ChapterService;
+import com.raindrop.manga_service.service.UniqueReaderCounter;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
@@ -13,6 +16,8 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -67,13 +72,26 @@ public class ChapterController {
      * @return Thông tin chapter sau khi cập nhật lượt xem
      */
     @PostMapping("/{id}/view")
-    ApiResponse<ChapterResponse> incrementChapterViews(@PathVariable String id) {
+    ApiResponse<ChapterResponse> incrementChapterViews(@PathVariable String id,
+                                                      @AuthenticationPrincipal Jwt jwt,
+                                                      HttpServletRequest request) {
+        long readerHash = UniqueReaderCounter.readerHash(jwt == null ? null : jwt.getSubject(), clientFingerprint(request));
         return ApiResponse.<ChapterResponse>builder()
                 .message("Chapter views incremented successfully")
-                .result(chapterService.incrementChapterViews(id))
+                .result(chapterService.incrementChapterViews(id, readerHash))
                 .build();
     }
 
+    /**
+     * Dấu vân tay của người đọc chưa đăng nhập: IP của client. getRemoteAddr() đã được
+     * RemoteIpValve (server.forward-headers-strategy: native) thay bằng hop cuối cùng không thuộc
+     * proxy tin cậy trong X-Forwarded-For, nên client không tự đặt được. Không dùng User-Agent
+     * vì client đổi tuỳ ý để tạo thêm người đọc.
+     */
+    private String clientFingerprint(HttpServletRequest request) {
+        return request.getRemoteAddr();
+    }
+
     /**
      * Lấy tất cả chapter
      * @return Danh sách tất cả chapter
@@ -99,4 +117,22 @@ public class ChapterController {
                 .result(chapterService.getChaptersByMangaId(mangaId))
                 .build();
     }
+
+    /**
+     * Lấy danh sách chapter của một manga theo cursor, chapter mới nhất trước
+     * @param mangaId ID của manga
+     * @param cursor Token nhận được từ trang trước (bỏ trống cho trang đầu)
+     * @param size Số chapter mỗi trang
+     * @return Trang chapter kèm token của trang sau
+     */
+    @GetMapping("/manga/{mangaId}/cursor")
+    ApiResponse<CursorPageResponse<ChapterResponse>> scrollChaptersByMangaId(
+            @PathVariable String mangaId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        return ApiResponse.<CursorPageResponse<ChapterResponse>>builder()
+                .message("Chapters for manga retrieved successfully")
+                .result(chapterService.scrollChaptersByMangaId(mangaId, cursor, size))
+                .build();
+    }
 }
@@ -3,10 +3,17 @@ package com.raindrop.manga_service.controller;
 import com.raindrop.manga_service.dto.request.AdvancedSearchRequest;
 import com.raindrop.manga_service.dto.request.MangaRequest;
 import com.raindrop.manga_service.dto.response.ApiResponse;
+import com.raindrop.manga_service.dto.response.CursorPageResponse;
 import com.raindrop.manga_service.dto.response.MangaResponse;
+import com.raindrop.manga_service.dto.response.MangaSuggestionResponse;
 import com.raindrop.manga_service.dto.response.MangaSummaryResponse;
+import com.raindrop.manga_service.dto.response.SearchFacetsResponse;
+import com.raindrop.manga_service.dto.response.TrendingMangaResponse;
+import com.raindrop.manga_service.enums.MangaSortKey;
 import com.raindrop.manga_service.enums.MangaStatus;
+import com.raindrop.manga_service.search.MangaSuggester;
 import com.raindrop.manga_service.service.MangaService;
+import com.raindrop.manga_service.service.MangaSummaryService;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
@@ -31,6 +38,8 @@ import java.util.stream.Collectors;
 @Slf4j
 public class MangaController {
     MangaService mangaService;
+    MangaSummaryService mangaSummaryService;
+    MangaSuggester mangaSuggester;
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
@@ -116,6 +125,83 @@ public class MangaController {
                 .build();
     }
 
+    /**
+     * Lấy danh sách tóm tắt manga theo cursor (keyset), không dùng OFFSET nên
+     * trang sâu có chi phí như trang đầu
+     * @param sort Thứ tự: latest, views, loves, comments, created, updated
+     * @param cursor Token nhận được từ trang trước (bỏ trống cho trang đầu)
+     * @param size Số manga mỗi trang
+     * @param withTotal Trả về tổng số manga ước lượng
+     */
+    @GetMapping("/summaries/cursor")
+    ApiResponse<CursorPageResponse<MangaSummaryResponse>> scrollMangaSummaries(
+            @RequestParam(value = "sort", defaultValue = "latest") String sort,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "withTotal", defaultValue = "false") boolean withTotal) {
+        return ApiResponse.<CursorPageResponse<MangaSummaryResponse>>builder()
+                .message("Manga summaries retrieved successfully")
+                .result(mangaSummaryService.scrollSummaries(MangaSortKey.from(sort), cursor, size, withTotal))
+                .build();
+    }
+
+    /**
+     * Lấy danh sách manga theo cursor (keyset)
+     * @see #scrollMangaSummaries
+     */
+    @GetMapping("/paginated/cursor")
+    ApiResponse<CursorPageResponse<MangaResponse>> scrollMangas(
+            @RequestParam(value = "sort", defaultValue = "latest") String sort,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "withTotal", defaultValue = "false") boolean withTotal) {
+        return ApiResponse.<CursorPageResponse<MangaResponse>>builder()
+                .message("Paginated mangas retrieved successfully")
+                .result(mangaSummaryService.scrollMangas(MangaSortKey.from(sort), cursor, size, withTotal))
+                .build();
+    }
+
+    /**
+     * Tìm kiếm toàn văn (tiêu đề, tác giả, mô tả), không phân biệt dấu, hỗ trợ tiền tố
+     * @param query Câu truy vấn
+     * @param pageable Thông tin phân trang
+     * @return Danh sách tóm tắt manga theo độ liên quan
+     */
+    @GetMapping("/search")
+    ApiResponse<Page<MangaSummaryResponse>> searchMangas(
+            @RequestParam("q") String query,
+            @PageableDefault(size = 10) Pageable pageable) {
+        return ApiResponse.<Page<MangaSummaryResponse>>builder()
+                .message("Search results retrieved successfully")
+                .result(mangaSummaryService.searchSummaries(query, pageable))
+                .build();
+    }
+
+    @GetMapping("/suggest")
+    ApiResponse<List<MangaSuggestionResponse>> suggestMangas(
+            @RequestParam("q") String query,
+            @RequestParam(value = "limit", defaultValue = "8") int limit) {
+        return ApiResponse.<List<MangaSuggestionResponse>>builder()
+                .message("Suggestions retrieved successfully")
+                .result(mangaSuggester.suggest(query, limit))
+                .build();
+    }
+
+    /**
+     * Manga thịnh hành theo lượt xem gần đây, lượt xem mới có trọng số cao hơn
+     * @param window Khoảng thời gian: 24h hoặc 7d
+     * @param limit Số manga cần lấy
+     */
+    @GetMapping("/trending")
+    ApiResponse<List<TrendingMangaResponse>> getTrendingMangas(
+            @RequestParam(value = "window", defaultValue = "24h") String window,
+            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return ApiResponse.<List<TrendingMangaResponse>>builder()
+                .message("Trending mangas retrieved successfully")
+                .result(mangaSummaryService.findTrending(window, limit))
+                .build();
+    }
+
     @PutMapping(value = "/{id}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     ApiResponse<MangaResponse> updateManga(
@@ -179,4 +265,33 @@ public class MangaController {
                 .result(mangaService.advancedSearch(searchRequest, pageable))
                 .build();
     }
+
+    /**
+     * Số manga theo thể loại, tình trạng và năm cho cùng điều kiện với /advanced-search
+     * @param searchRequest Yêu cầu tìm kiếm nâng cao
+     */
+    @PostMapping("/advanced-search/facets")
+    ApiResponse<SearchFacetsResponse> advancedSearchFacets(@RequestBody AdvancedSearchRequest searchRequest) {
+        return ApiResponse.<SearchFacetsResponse>builder()
+                .message("Search facets retrieved successfully")
+                .result(mangaService.searchFacets(searchRequest))
+                .build();
+    }
+
+    /**
+     * Tìm kiếm nâng cao theo cursor, thứ tự lấy từ searchRequest.orderBy
+     * @param searchRequest Yêu cầu tìm kiếm nâng cao
+     * @param cursor Token nhận được từ trang trước (bỏ trống cho trang đầu)
+     * @param size Số manga mỗi trang
+     */
+    @PostMapping("/advanced-search/cursor")
+    ApiResponse<CursorPageResponse<MangaResponse>> scrollAdvancedSearch(
+            @RequestBody AdvancedSearchRequest searchRequest,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "10") int size) {
+        return ApiResponse.<CursorPageResponse<MangaResponse>>builder()
+                .message("Advanced search results retrieved successfully")
+                .result(mangaSummaryService.scrollSearch(searchRequest, cursor, size))
+                .build();
+    }
 }
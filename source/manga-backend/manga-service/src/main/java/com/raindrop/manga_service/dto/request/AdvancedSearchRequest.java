@@ -1,5 +1,6 @@
 package com.raindrop.manga_service.dto.request;
 
+import com.raindrop.manga_service.enums.GenreMatchMode;
 import com.raindrop.manga_service.enums.MangaStatus;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
@@ -15,6 +16,10 @@ public class AdvancedSearchRequest {
     String title;
     String author;
     List<String> genres;
+    // Mặc định ANY
+    GenreMatchMode genreMode;
+    // Loại trừ manga có bất kỳ thể loại nào trong danh sách này
+    List<String> excludedGenres;
     Integer yearOfRelease;
     MangaStatus status;
     String orderBy;
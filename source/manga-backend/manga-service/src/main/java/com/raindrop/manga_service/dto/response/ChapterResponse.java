@@ -17,6 +17,8 @@ public class ChapterResponse {
     int chapterNumber;
     String title;
     int views;
+    // Số người đọc khác nhau (ước lượng)
+    long uniqueReaders;
     int comments;
     List<PageResponse> pages;
     String mangaId;
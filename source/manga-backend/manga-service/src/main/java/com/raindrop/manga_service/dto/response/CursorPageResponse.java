@@ -0,0 +1,24 @@
+package com.raindrop.manga_service.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+/**
+ * Một trang kết quả phân trang theo cursor (keyset)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPageResponse<T> {
+    List<T> content;
+    // Token để lấy trang tiếp theo, null nếu đã hết
+    String nextCursor;
+    // Tổng số phần tử ước lượng, chỉ có khi được yêu cầu
+    Long estimatedTotal;
+}
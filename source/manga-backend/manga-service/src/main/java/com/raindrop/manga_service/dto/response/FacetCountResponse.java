@@ -0,0 +1,14 @@
+package com.raindrop.manga_service.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class FacetCountResponse {
+    String value;
+    long count;
+}
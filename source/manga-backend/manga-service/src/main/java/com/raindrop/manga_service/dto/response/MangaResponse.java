@@ -19,6 +19,8 @@ public class MangaResponse {
     String author;
     int loves;
     int views;
+    // Số người đọc khác nhau (ước lượng)
+    long uniqueReaders;
     int comments;
     String coverUrl;
     String description;
@@ -0,0 +1,16 @@
+package com.raindrop.manga_service.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class MangaSuggestionResponse {
+    String id;
+    String title;
+    String author;
+    String coverUrl;
+}
@@ -5,6 +5,7 @@ import lombok.*;
 import lombok.experimental.FieldDefaults;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -22,4 +23,5 @@ public class MangaSummaryResponse {
     int loves;
     int comments;
     Integer lastChapterNumber;
+    List<String> genres;
 }
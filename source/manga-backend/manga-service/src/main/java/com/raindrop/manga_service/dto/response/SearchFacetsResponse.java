@@ -0,0 +1,24 @@
+package com.raindrop.manga_service.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+/**
+ * Số manga theo từng thể loại, tình trạng và năm cho một yêu cầu tìm kiếm nâng cao.
+ * Số đếm của mỗi nhóm bỏ qua điều kiện của chính nhóm đó, để người dùng thấy
+ * kết quả sẽ thay đổi thế nào khi chọn thêm một giá trị khác trong nhóm.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class SearchFacetsResponse {
+    // Số manga thoả mãn toàn bộ điều kiện
+    long total;
+    List<FacetCountResponse> genres;
+    List<FacetCountResponse> statuses;
+    List<FacetCountResponse> years;
+}
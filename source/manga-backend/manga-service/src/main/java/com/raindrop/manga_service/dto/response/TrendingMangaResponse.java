@@ -0,0 +1,17 @@
+package com.raindrop.manga_service.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class TrendingMangaResponse {
+    MangaSummaryResponse manga;
+    // Số lượt xem trong khoảng thời gian
+    long views;
+    // Điểm thịnh hành (lượt xem đã nhân trọng số giảm dần theo thời gian)
+    double score;
+}
@@ -17,6 +17,7 @@ import java.util.List;
 @Builder
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @EntityListeners(AuditingEntityListener.class)
+@Table(indexes = @Index(name = "idx_chapter_manga_number", columnList = "manga_id, chapterNumber"))
 public class Chapter {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -0,0 +1,52 @@
+package com.raindrop.manga_service.entity;
+
+import com.raindrop.manga_service.enums.MangaStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bảng đọc phẳng cho các trang danh sách, được cập nhật khi có MangaChangedEvent.
+ * Tên thuộc tính trùng với Manga để tham số sort của API không đổi.
+ */
+@Entity
+@Table(name = "manga_summary", indexes = {
+        // Index ghép (thuộc tính, id) khớp với ORDER BY và điều kiện keyset của MangaSortKey
+        @Index(name = "idx_manga_summary_last_chapter_added_at_id", columnList = "lastChapterAddedAt, id"),
+        @Index(name = "idx_manga_summary_updated_at_id", columnList = "updatedAt, id"),
+        @Index(name = "idx_manga_summary_created_at_id", columnList = "createdAt, id"),
+        @Index(name = "idx_manga_summary_views_id", columnList = "views, id"),
+        @Index(name = "idx_manga_summary_loves_id", columnList = "loves, id"),
+        @Index(name = "idx_manga_summary_comments_id", columnList = "comments, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class MangaSummary {
+    // Trùng với ID của manga
+    @Id
+    String id;
+    String title;
+    String author;
+    @Column(columnDefinition = "TEXT")
+    String description;
+    String coverUrl;
+    @Enumerated(EnumType.STRING)
+    MangaStatus status;
+    int yearOfRelease;
+    // Tên thể loại, phân tách bằng dấu phẩy
+    @Column(length = 1000)
+    String genres;
+    int views;
+    int loves;
+    int comments;
+    String lastChapterId;
+    Integer lastChapterNumber;
+    LocalDateTime lastChapterAddedAt;
+    LocalDateTime createdAt;
+    LocalDateTime updatedAt;
+}
@@ -0,0 +1,27 @@
+package com.raindrop.manga_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Lượt xem theo giờ của một manga trong 7 ngày gần nhất, lưu gọn trong một dòng:
+ * buckets là 168 số nguyên 4 byte, ô của giờ h nằm ở vị trí h % 168
+ */
+@Entity
+@Table(name = "manga_view_history")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class MangaViewHistory {
+    // Trùng với ID của manga
+    @Id
+    String mangaId;
+    @Lob
+    @Column(nullable = false)
+    byte[] buckets;
+    // Giờ (tính từ epoch) của ô mới nhất
+    long lastHour;
+}
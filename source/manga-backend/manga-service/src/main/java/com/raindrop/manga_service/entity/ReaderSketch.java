@@ -0,0 +1,29 @@
+package com.raindrop.manga_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+/**
+ * Sketch HyperLogLog số người đọc khác nhau của một chapter hoặc một manga
+ */
+@Entity
+@Table(name = "reader_sketch")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ReaderSketch {
+    // ID của chapter hoặc manga
+    @Id
+    String id;
+    @Lob
+    @Column(nullable = false)
+    byte[] registers;
+    // Ước lượng tại lần lưu gần nhất
+    long uniqueReaders;
+    LocalDateTime updatedAt;
+}
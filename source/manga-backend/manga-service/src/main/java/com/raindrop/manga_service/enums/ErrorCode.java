@@ -11,6 +11,9 @@ public enum ErrorCode {
     INVALID_KEY(9998, "Invalid message key", HttpStatus.BAD_REQUEST),
     UNAUTHENTICATED(9001, "Unauthenticated", HttpStatus.UNAUTHORIZED),
     UNAUTHORIZED(9002, "You don't have permission", HttpStatus.FORBIDDEN),
+    INVALID_CURSOR(9003, "Invalid pagination cursor", HttpStatus.BAD_REQUEST),
+    INVALID_SORT_KEY(9004, "Invalid sort key", HttpStatus.BAD_REQUEST),
+    INVALID_TRENDING_WINDOW(9005, "Invalid trending window", HttpStatus.BAD_REQUEST),
 
     // Manga related errors (2000-2099)
     MANGA_NOT_FOUND(2001, "Manga not found", HttpStatus.NOT_FOUND),
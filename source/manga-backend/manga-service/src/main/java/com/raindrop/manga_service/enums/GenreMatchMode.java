@@ -0,0 +1,11 @@
+package com.raindrop.manga_service.enums;
+
+/**
+ * Cách kết hợp nhiều thể loại trong tìm kiếm nâng cao
+ */
+public enum GenreMatchMode {
+    // Manga có ít nhất một thể loại được chọn
+    ANY,
+    // Manga có đủ tất cả thể loại được chọn
+    ALL
+}
@@ -0,0 +1,51 @@
+package com.raindrop.manga_service.enums;
+
+import com.raindrop.manga_service.entity.MangaSummary;
+import com.raindrop.manga_service.exception.AppException;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Các thứ tự sắp xếp hỗ trợ phân trang theo cursor. Tất cả đều giảm dần theo
+ * (thuộc tính, id), mỗi khoá có index ghép (thuộc tính, id) trên manga_summary.
+ * Thuộc tính nullable có phần đuôi null được duyệt riêng sau các giá trị khác null.
+ */
+@Getter
+public enum MangaSortKey {
+    LATEST("lastChapterAddedAt", true, MangaSummary::getLastChapterAddedAt, LocalDateTime::parse),
+    VIEWS("views", false, MangaSummary::getViews, Integer::valueOf),
+    LOVES("loves", false, MangaSummary::getLoves, Integer::valueOf),
+    COMMENTS("comments", false, MangaSummary::getComments, Integer::valueOf),
+    CREATED("createdAt", true, MangaSummary::getCreatedAt, LocalDateTime::parse),
+    UPDATED("updatedAt", true, MangaSummary::getUpdatedAt, LocalDateTime::parse);
+
+    private final String attribute;
+    private final boolean nullable;
+    private final Function<MangaSummary, Comparable<?>> extractor;
+    private final Function<String, Comparable<?>> parser;
+
+    MangaSortKey(String attribute, boolean nullable, Function<MangaSummary, Comparable<?>> extractor,
+                 Function<String, Comparable<?>> parser) {
+        this.attribute = attribute;
+        this.nullable = nullable;
+        this.extractor = extractor;
+        this.parser = parser;
+    }
+
+    /**
+     * @param value Tên khoá (không phân biệt hoa thường), null thì dùng LATEST
+     */
+    public static MangaSortKey from(String value) {
+        if (value == null || value.isBlank()) {
+            return LATEST;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new AppException(ErrorCode.INVALID_SORT_KEY);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.raindrop.manga_service.enums;
+
+import com.raindrop.manga_service.exception.AppException;
+import lombok.Getter;
+
+/**
+ * Khoảng thời gian xếp hạng thịnh hành. Lượt xem mỗi giờ được nhân với trọng số giảm
+ * theo chu kỳ bán rã, nên lượt xem gần đây có giá trị hơn lượt xem đầu khoảng.
+ */
+@Getter
+public enum TrendingWindow {
+    DAY("24h", 24, 6),
+    WEEK("7d", 168, 48);
+
+    private final String label;
+    private final int hours;
+    // weights[age] là trọng số của lượt xem cách đây age giờ
+    private final double[] weights;
+
+    TrendingWindow(String label, int hours, double halfLifeHours) {
+        this.label = label;
+        this.hours = hours;
+        this.weights = new double[hours];
+        for (int age = 0; age < hours; age++) {
+            weights[age] = Math.pow(0.5, age / halfLifeHours);
+        }
+    }
+
+    /**
+     * @param value "24h" hoặc "7d", null thì dùng 24h
+     */
+    public static TrendingWindow from(String value) {
+        if (value == null || value.isBlank()) {
+            return DAY;
+        }
+        for (TrendingWindow window : values()) {
+            if (window.label.equalsIgnoreCase(value.trim())) {
+                return window;
+            }
+        }
+        throw new AppException(ErrorCode.INVALID_TRENDING_WINDOW);
+    }
+}
@@ -0,0 +1,8 @@
+package com.raindrop.manga_service.event;
+
+/**
+ * Phát ra khi danh sách thể loại thay đổi (thêm, sửa tên, xoá)
+ * @param name Tên thể loại trước khi thay đổi
+ */
+public record GenreChangedEvent(String name) {
+}
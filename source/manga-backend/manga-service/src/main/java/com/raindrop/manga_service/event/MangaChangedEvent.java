@@ -0,0 +1,9 @@
+package com.raindrop.manga_service.event;
+
+/**
+ * Phát ra khi dữ liệu hiển thị của một manga thay đổi (thông tin, chapter mới,
+ * lượt xem, lượt thích, comment, xoá). Các read model lắng nghe để cập nhật lại.
+ * @param mangaId ID của manga
+ */
+public record MangaChangedEvent(String mangaId) {
+}
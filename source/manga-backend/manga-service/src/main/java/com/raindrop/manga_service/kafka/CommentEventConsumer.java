@@ -3,13 +3,14 @@ package com.raindrop.manga_service.kafka;
 import com.raindrop.common.event.CommentEvent;
 import com.raindrop.manga_service.entity.Chapter;
 import com.raindrop.manga_service.entity.Manga;
+import com.raindrop.manga_service.event.MangaChangedEvent;
 import com.raindrop.manga_service.repository.ChapterRepository;
 import com.raindrop.manga_service.repository.MangaRepository;
-import com.raindrop.manga_service.service.MangaStatsService;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,7 +24,7 @@ import java.util.Optional;
 public class CommentEventConsumer {
     MangaRepository mangaRepository;
     ChapterRepository chapterRepository;
-    MangaStatsService mangaStatsService;
+    ApplicationEventPublisher eventPublisher;
 
     /**
      * Xử lý sự kiện comment từ Kafka
@@ -43,11 +44,9 @@ public class CommentEventConsumer {
             updateChapterCommentCount(chapterId, eventType);
         }
 
-        // Cập nhật số lượng comment cho manga
+        // Tổng comment của manga được cộng cùng phần chênh lệch, trong cùng transaction với chapter
         updateMangaCommentCount(mangaId, eventType);
-
-        // Cập nhật tổng số comment của manga
-        mangaStatsService.updateMangaTotalComments(mangaId);
+        eventPublisher.publishEvent(new MangaChangedEvent(mangaId));
     }
 
     /**
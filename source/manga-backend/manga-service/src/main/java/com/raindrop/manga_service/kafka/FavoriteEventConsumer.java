@@ -2,11 +2,13 @@ package com.raindrop.manga_service.kafka;
 
 import com.raindrop.common.event.FavoriteEvent;
 import com.raindrop.manga_service.entity.Manga;
+import com.raindrop.manga_service.event.MangaChangedEvent;
 import com.raindrop.manga_service.repository.MangaRepository;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,6 +19,7 @@ import org.springframework.transaction.annotation.Transactional;
 @Slf4j
 public class FavoriteEventConsumer {
     MangaRepository mangaRepository;
+    ApplicationEventPublisher eventPublisher;
     
     /**
      * Xử lý sự kiện yêu thích từ Kafka
@@ -51,5 +54,6 @@ public class FavoriteEventConsumer {
         
         // Lưu manga
         mangaRepository.save(manga);
+        eventPublisher.publishEvent(new MangaChangedEvent(mangaId));
     }
 }
@@ -4,6 +4,7 @@ import com.raindrop.manga_service.dto.request.ChapterRequest;
 import com.raindrop.manga_service.dto.response.ChapterResponse;
 import com.raindrop.manga_service.entity.Chapter;
 import com.raindrop.manga_service.entity.Manga;
+import com.raindrop.manga_service.repository.projection.ChapterListItem;
 import com.raindrop.manga_service.repository.httpclient.UploadClient;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -17,6 +18,11 @@ import java.util.List;
 public interface ChapterMapper {
     @Mapping(target = "id", source = "id")
     @Mapping(target = "views", source = "views")
+    @Mapping(target = "uniqueReaders", ignore = true) // Xử lý riêng trong service
     ChapterResponse toChapterResponse(Chapter chapter);
 
+    @Mapping(target = "pages", ignore = true)
+    @Mapping(target = "uniqueReaders", ignore = true)
+    ChapterResponse toChapterResponse(ChapterListItem chapter);
+
 }
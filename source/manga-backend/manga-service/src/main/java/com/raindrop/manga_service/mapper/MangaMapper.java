@@ -6,6 +6,7 @@ import com.raindrop.manga_service.dto.response.MangaSummaryResponse;
 import com.raindrop.manga_service.entity.Chapter;
 import com.raindrop.manga_service.entity.Genre;
 import com.raindrop.manga_service.entity.Manga;
+import com.raindrop.manga_service.entity.MangaSummary;
 import org.mapstruct.*;
 
 import java.util.ArrayList;
@@ -31,6 +32,7 @@ public interface MangaMapper {
 
     @Mapping(target = "genres", source = "genres", qualifiedByName = "genresToStringList")
     @Mapping(target = "lastChapterId", source = "lastChapterId")
+    @Mapping(target = "uniqueReaders", ignore = true) // Xử lý riêng trong service
     MangaResponse toMangaResponse(Manga manga);
 
     /**
@@ -47,6 +49,7 @@ public interface MangaMapper {
     @Mapping(target = "loves", source = "loves")
     @Mapping(target = "comments", source = "comments")
     @Mapping(target = "lastChapterNumber", ignore = true)
+    @Mapping(target = "genres", source = "genres", qualifiedByName = "genresToStringList")
     MangaSummaryResponse toMangaSummaryResponse(Manga manga);
 
     @Mapping(target = "id", ignore = true)
@@ -59,6 +62,30 @@ public interface MangaMapper {
     @Mapping(target = "lastChapterAddedAt", ignore = true)
     void updateManga(@MappingTarget Manga manga, MangaRequest request);
 
+    @Mapping(target = "genres", source = "genres", qualifiedByName = "genresToNames")
+    @Mapping(target = "lastChapterNumber", ignore = true)
+    MangaSummary toMangaSummary(Manga manga);
+
+    @Mapping(target = "genres", source = "genres", qualifiedByName = "namesToList")
+    MangaSummaryResponse toMangaSummaryResponse(MangaSummary summary);
+
+    @Mapping(target = "genres", source = "genres", qualifiedByName = "namesToList")
+    @Mapping(target = "uniqueReaders", ignore = true)
+    MangaResponse toMangaResponse(MangaSummary summary);
+
+    @Named("genresToNames")
+    default String genresToNames(List<Genre> genres) {
+        return String.join(",", genresToStringList(genres));
+    }
+
+    @Named("namesToList")
+    default List<String> namesToList(String names) {
+        if (names == null || names.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(List.of(names.split(",")));
+    }
+
     @Named("genresToStringList")
     default List<String> genresToStringList(List<Genre> genres) {
         return Optional.ofNullable(genres)
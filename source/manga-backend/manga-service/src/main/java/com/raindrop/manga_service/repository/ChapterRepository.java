@@ -2,6 +2,8 @@ package com.raindrop.manga_service.repository;
 
 import com.raindrop.manga_service.entity.Chapter;
 import com.raindrop.manga_service.entity.Manga;
+import com.raindrop.manga_service.repository.projection.ChapterListItem;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -13,11 +15,62 @@ import java.util.Optional;
 import java.util.Set;
 
 public interface ChapterRepository extends JpaRepository<Chapter, String> {
+    String CHAPTER_LIST_COLUMNS = "c.id AS id, c.chapterNumber AS chapterNumber, c.title AS title, " +
+            "c.views AS views, c.comments AS comments, c.manga.id AS mangaId, c.updatedAt AS updatedAt";
+
     Chapter findByTitle(String title);
     Optional<Chapter> findByMangaAndChapterNumber(Manga manga, int chapterNumber);
     Set<Chapter> findByManga(Manga manga);
     List<Chapter> findByMangaId(String mangaId);
 
+    /**
+     * Lấy danh sách chapter của manga theo số chapter tăng dần, chỉ các cột cần cho danh sách
+     * @param mangaId ID của manga
+     */
+    @Query("SELECT " + CHAPTER_LIST_COLUMNS + " FROM Chapter c WHERE c.manga.id = :mangaId " +
+            "ORDER BY c.chapterNumber ASC, c.id ASC")
+    List<ChapterListItem> findListItemsByMangaId(@Param("mangaId") String mangaId);
+
+    /**
+     * Lấy các chapter mới nhất của manga (trang đầu của phân trang theo cursor)
+     * @param mangaId ID của manga
+     * @param pageable Chỉ dùng để giới hạn số phần tử, không đếm tổng
+     */
+    @Query("SELECT " + CHAPTER_LIST_COLUMNS + " FROM Chapter c WHERE c.manga.id = :mangaId " +
+            "ORDER BY c.chapterNumber DESC, c.id DESC")
+    List<ChapterListItem> findLatestByMangaId(@Param("mangaId") String mangaId, Pageable pageable);
+
+    /**
+     * Lấy các chapter đứng sau cursor (chapterNumber, id) theo thứ tự giảm dần
+     * @param mangaId ID của manga
+     * @param chapterNumber Số chapter của phần tử cuối trang trước
+     * @param id ID của phần tử cuối trang trước
+     * @param pageable Chỉ dùng để giới hạn số phần tử, không đếm tổng
+     */
+    @Query("SELECT " + CHAPTER_LIST_COLUMNS + " FROM Chapter c WHERE c.manga.id = :mangaId " +
+            "AND (c.chapterNumber < :chapterNumber OR (c.chapterNumber = :chapterNumber AND c.id < :id)) " +
+            "ORDER BY c.chapterNumber DESC, c.id DESC")
+    List<ChapterListItem> findByMangaIdAfter(@Param("mangaId") String mangaId,
+                                             @Param("chapterNumber") int chapterNumber,
+                                             @Param("id") String id,
+                                             Pageable pageable);
+
+    /**
+     * Lấy số thứ tự của chapter mà không nạp entity
+     * @param id ID của chapter
+     * @return Số chapter nếu tồn tại
+     */
+    @Query("SELECT c.chapterNumber FROM Chapter c WHERE c.id = :id")
+    Optional<Integer> findChapterNumberById(@Param("id") String id);
+
+    /**
+     * Lấy ID manga của chapter mà không nạp entity
+     * @param id ID của chapter
+     * @return ID của manga nếu chapter tồn tại
+     */
+    @Query("SELECT c.manga.id FROM Chapter c WHERE c.id = :id")
+    Optional<String> findMangaIdById(@Param("id") String id);
+
     /**
      * Tăng lượt xem của chapter mà không cập nhật thời gian updatedAt
      * @param id ID của chapter
@@ -1,6 +1,8 @@
 package com.raindrop.manga_service.repository;
 
 import com.raindrop.manga_service.entity.Manga;
+import com.raindrop.manga_service.repository.projection.MangaStatsDrift;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
@@ -8,12 +10,22 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface MangaRepository extends JpaRepository<Manga, String>, JpaSpecificationExecutor<Manga> {
     Manga findByTitle(String name);
     Optional<Manga> findById(String mangaId);
 
+    /**
+     * Lấy ID các manga thuộc một thể loại
+     * @param genreId ID của thể loại
+     * @return Danh sách ID manga
+     */
+    @Query("SELECT m.id FROM Manga m JOIN m.genres g WHERE g.id = :genreId")
+    List<String> findIdsByGenreId(@Param("genreId") String genreId);
+
     /**
      * Tăng lượt xem của manga mà không cập nhật thời gian updatedAt
      * @param id ID của manga
@@ -45,25 +57,36 @@ public interface MangaRepository extends JpaRepository<Manga, String>, JpaSpecif
     int decrementComments(@Param("id") String id);
 
     /**
-     * Cập nhật tổng số lượt xem của manga bằng tổng số lượt xem của tất cả các chapter
-     * @param mangaId ID của manga
-     * @param totalViews Tổng số lượt xem
-     * @return Số bản ghi được cập nhật
+     * Lấy ID manga theo thứ tự tăng dần, bắt đầu sau afterId (phân trang keyset)
+     * @param afterId ID cuối của lần quét trước, chuỗi rỗng cho lần đầu
      */
-    @Modifying
-    @Transactional
-    @Query("UPDATE Manga m SET m.views = :totalViews WHERE m.id = :mangaId")
-    int updateTotalViews(@Param("mangaId") String mangaId, @Param("totalViews") int totalViews);
+    @Query("SELECT m.id FROM Manga m WHERE m.id > :afterId ORDER BY m.id")
+    List<String> findIdsAfter(@Param("afterId") String afterId, Pageable pageable);
+
+    /**
+     * Đối chiếu tổng đang lưu của các manga với tổng của chapter trong một câu truy vấn,
+     * chỉ trả về những manga bị lệch
+     * @param ids Danh sách ID manga
+     */
+    @Query("SELECT m.id AS id, m.views AS storedViews, m.comments AS storedComments, " +
+            "COALESCE(SUM(c.views), 0) AS chapterViews, COALESCE(SUM(c.comments), 0) AS chapterComments " +
+            "FROM Manga m LEFT JOIN Chapter c ON c.manga = m WHERE m.id IN :ids " +
+            "GROUP BY m.id, m.views, m.comments " +
+            "HAVING m.views <> COALESCE(SUM(c.views), 0) OR m.comments <> COALESCE(SUM(c.comments), 0)")
+    List<MangaStatsDrift> findStatsDrift(@Param("ids") Collection<String> ids);
 
     /**
-     * Cập nhật tổng số comment của manga bằng tổng số comment của tất cả các chapter
+     * Cộng phần chênh lệch vào tổng lượt xem và comment của manga
      * @param mangaId ID của manga
-     * @param totalComments Tổng số comment
+     * @param viewsDelta Số lượt xem cần cộng (có thể âm)
+     * @param commentsDelta Số comment cần cộng (có thể âm)
      * @return Số bản ghi được cập nhật
      */
     @Modifying
     @Transactional
-    @Query("UPDATE Manga m SET m.comments = :totalComments WHERE m.id = :mangaId")
-    int updateTotalComments(@Param("mangaId") String mangaId, @Param("totalComments") int totalComments);
+    @Query("UPDATE Manga m SET m.views = m.views + :viewsDelta, m.comments = m.comments + :commentsDelta WHERE m.id = :mangaId")
+    int adjustTotals(@Param("mangaId") String mangaId,
+                     @Param("viewsDelta") int viewsDelta,
+                     @Param("commentsDelta") int commentsDelta);
 
 }
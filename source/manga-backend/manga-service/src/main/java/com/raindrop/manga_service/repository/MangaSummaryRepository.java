@@ -0,0 +1,9 @@
+package com.raindrop.manga_service.repository;
+
+import com.raindrop.manga_service.entity.MangaSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+public interface MangaSummaryRepository extends JpaRepository<MangaSummary, String>, JpaSpecificationExecutor<MangaSummary>,
+        MangaSummaryRepositoryCustom {
+}
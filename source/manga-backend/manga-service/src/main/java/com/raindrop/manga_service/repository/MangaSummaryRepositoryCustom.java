@@ -0,0 +1,19 @@
+package com.raindrop.manga_service.repository;
+
+import com.raindrop.manga_service.entity.MangaSummary;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface MangaSummaryRepositoryCustom {
+    /**
+     * Chỉ lấy cột id theo thứ tự sort. Với sort theo (thuộc tính, id), MySQL đọc thẳng từ
+     * index ghép mà không cần đọc dòng dữ liệu.
+     * @param spec Điều kiện lọc
+     * @param sort Thứ tự sắp xếp
+     * @param offset Số id bỏ qua
+     * @param limit Số id tối đa
+     */
+    List<String> findIds(Specification<MangaSummary> spec, Sort sort, long offset, int limit);
+}
@@ -0,0 +1,23 @@
+package com.raindrop.manga_service.repository;
+
+import com.raindrop.manga_service.entity.MangaViewHistory;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface MangaViewHistoryRepository extends JpaRepository<MangaViewHistory, String> {
+    /**
+     * Lấy các dòng và khoá ghi (SELECT ... FOR UPDATE) tới hết transaction, để instance khác
+     * phải chờ thay vì cộng vào cùng bản cũ
+     * @param mangaIds Danh sách ID của manga
+     * @return Các dòng đã tồn tại
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM MangaViewHistory h WHERE h.mangaId IN :mangaIds ORDER BY h.mangaId")
+    List<MangaViewHistory> findAllByIdForUpdate(@Param("mangaIds") Collection<String> mangaIds);
+}
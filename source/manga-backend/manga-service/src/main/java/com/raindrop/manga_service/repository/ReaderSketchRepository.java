@@ -0,0 +1,22 @@
+package com.raindrop.manga_service.repository;
+
+import com.raindrop.manga_service.entity.ReaderSketch;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ReaderSketchRepository extends JpaRepository<ReaderSketch, String> {
+    /**
+     * Lấy các sketch và khoá ghi tới hết transaction, để hai instance không cùng gộp vào một bản cũ
+     * @param ids Danh sách ID của sketch
+     * @return Các sketch đã tồn tại
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ReaderSketch s WHERE s.id IN :ids ORDER BY s.id")
+    List<ReaderSketch> findAllByIdForUpdate(@Param("ids") Collection<String> ids);
+}
@@ -5,16 +5,22 @@ import com.raindrop.manga_service.dto.response.FileDataResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
+
 @FeignClient(name = "upload-service", url = "${app.services.upload}", configuration = com.raindrop.manga_service.configuration.FeignClientConfig.class)
 public interface UploadClient {
     @PostMapping(value = "/files/manga", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     ApiResponse<FileDataResponse> uploadMedia(@RequestHeader("Authorization") String token, @RequestPart("image") MultipartFile file);
 
+    @PostMapping(value = "/files/manga/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    ApiResponse<List<FileDataResponse>> uploadMediaBatch(@RequestHeader("Authorization") String token, @RequestPart("images") MultipartFile[] files);
+
     @DeleteMapping(value = "/files/{fileName}")
-    ApiResponse<Void> deleteMedia(@RequestHeader("Authorization") String token,@RequestPart("fileName") String fileName);
+    ApiResponse<Void> deleteMedia(@RequestHeader("Authorization") String token, @PathVariable("fileName") String fileName);
 }
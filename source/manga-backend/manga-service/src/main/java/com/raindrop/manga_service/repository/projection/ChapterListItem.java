@@ -0,0 +1,16 @@
+package com.raindrop.manga_service.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Các cột của chapter cần cho danh sách chapter, không có danh sách trang
+ */
+public interface ChapterListItem {
+    String getId();
+    int getChapterNumber();
+    String getTitle();
+    int getViews();
+    int getComments();
+    String getMangaId();
+    LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,12 @@
+package com.raindrop.manga_service.repository.projection;
+
+/**
+ * Tổng lượt xem và comment đang lưu của manga so với tổng tính từ các chapter
+ */
+public interface MangaStatsDrift {
+    String getId();
+    int getStoredViews();
+    int getStoredComments();
+    long getChapterViews();
+    long getChapterComments();
+}
@@ -1,46 +1,142 @@
 package com.raindrop.manga_service.scheduler;
 
-import com.raindrop.manga_service.entity.Manga;
 import com.raindrop.manga_service.repository.MangaRepository;
 import com.raindrop.manga_service.service.MangaStatsService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.AccessLevel;
-import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Đối chiếu tổng lượt xem và comment của manga theo từng nhóm ID (quét keyset theo id),
+ * mỗi nhóm là một câu GROUP BY và được xử lý song song trên một pool giới hạn.
+ * Tiến độ, thời gian chạy và số manga được sửa được xuất qua Micrometer.
+ */
 @Component
-@RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 @Slf4j
 public class MangaStatsScheduler {
     MangaRepository mangaRepository;
     MangaStatsService mangaStatsService;
-    
+    int chunkSize;
+    int concurrency;
+    Timer duration;
+    Counter correctedRows;
+    // Số manga đã đối chiếu / tổng số manga của lần chạy hiện tại (hoặc gần nhất)
+    AtomicLong scanned = new AtomicLong();
+    AtomicLong total = new AtomicLong();
+
+    public MangaStatsScheduler(MangaRepository mangaRepository,
+                               MangaStatsService mangaStatsService,
+                               @Value("${app.stats.reconcile.chunk-size:500}") int chunkSize,
+                               @Value("${app.stats.reconcile.concurrency:4}") int concurrency,
+                               MeterRegistry registry) {
+        this.mangaRepository = mangaRepository;
+        this.mangaStatsService = mangaStatsService;
+        this.chunkSize = chunkSize;
+        this.concurrency = concurrency;
+        this.duration = Timer.builder("manga.stats.reconcile.duration").register(registry);
+        this.correctedRows = Counter.builder("manga.stats.reconcile.corrected").register(registry);
+        // Gauge chỉ giữ hai bộ đếm, không giữ this khi object chưa khởi tạo xong
+        AtomicLong scanned = this.scanned;
+        AtomicLong total = this.total;
+        Gauge.builder("manga.stats.reconcile.scanned", scanned, AtomicLong::get).register(registry);
+        Gauge.builder("manga.stats.reconcile.progress", () -> progress(scanned, total)).register(registry);
+    }
+
     /**
-     * Cập nhật tổng số lượt xem và comment của tất cả manga mỗi ngày lúc 3 giờ sáng
+     * Đối chiếu tổng số lượt xem và comment của tất cả manga với tổng của các chapter
+     * mỗi ngày lúc 3 giờ sáng, sửa và báo cáo các manga bị lệch
      */
     @Scheduled(cron = "0 0 3 * * ?")
     public void updateAllMangaStats() {
-        log.info("Starting scheduled update of manga stats");
-        
-        List<Manga> allManga = mangaRepository.findAll();
-        log.info("Found {} manga to update", allManga.size());
-        
-        int successCount = 0;
-        for (Manga manga : allManga) {
-            try {
-                mangaStatsService.updateMangaTotalViews(manga.getId());
-                mangaStatsService.updateMangaTotalComments(manga.getId());
-                successCount++;
-            } catch (Exception e) {
-                log.error("Error updating stats for manga {}: {}", manga.getId(), e.getMessage());
+        log.info("Starting scheduled reconciliation of manga stats");
+        long startedAt = System.nanoTime();
+        total.set(mangaRepository.count());
+        scanned.set(0);
+
+        AtomicInteger driftedCount = new AtomicInteger();
+        AtomicLong viewsDrift = new AtomicLong();
+        AtomicLong commentsDrift = new AtomicLong();
+        AtomicInteger failedChunks = new AtomicInteger();
+
+        // Giới hạn số nhóm đang chờ để danh sách ID không dồn hết vào hàng đợi
+        Semaphore inFlight = new Semaphore(concurrency * 2);
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency, threadFactory());
+        try {
+            String afterId = "";
+            List<String> ids;
+            while (!(ids = mangaRepository.findIdsAfter(afterId, PageRequest.of(0, chunkSize))).isEmpty()) {
+                afterId = ids.get(ids.size() - 1);
+                List<String> chunk = ids;
+                inFlight.acquireUninterruptibly();
+                pool.execute(() -> {
+                    try {
+                        for (MangaStatsService.StatsDrift drift : mangaStatsService.reconcile(chunk)) {
+                            driftedCount.incrementAndGet();
+                            viewsDrift.addAndGet(Math.abs(drift.views()));
+                            commentsDrift.addAndGet(Math.abs(drift.comments()));
+                            correctedRows.increment();
+                        }
+                    } catch (Exception e) {
+                        failedChunks.incrementAndGet();
+                        log.error("Error reconciling stats for mangas {}..{}: {}",
+                                chunk.get(0), chunk.get(chunk.size() - 1), e.getMessage());
+                    } finally {
+                        scanned.addAndGet(chunk.size());
+                        inFlight.release();
+                    }
+                });
+            }
+        } finally {
+            pool.shutdown();
+            awaitTermination(pool);
+        }
+
+        long elapsed = System.nanoTime() - startedAt;
+        duration.record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("Completed reconciliation of manga stats in {} ms. Drifted: {}/{}, views drift: {}, comments drift: {}, failed chunks: {}",
+                TimeUnit.NANOSECONDS.toMillis(elapsed), driftedCount.get(), scanned.get(),
+                viewsDrift.get(), commentsDrift.get(), failedChunks.get());
+    }
+
+    private static double progress(AtomicLong scanned, AtomicLong total) {
+        return total.get() == 0 ? 1.0 : (double) scanned.get() / total.get();
+    }
+
+    private static void awaitTermination(ExecutorService pool) {
+        try {
+            while (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.info("Waiting for manga stats reconciliation to finish");
             }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
         }
-        
-        log.info("Completed scheduled update of manga stats. Success: {}/{}", successCount, allManga.size());
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "stats-reconcile-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
     }
 }
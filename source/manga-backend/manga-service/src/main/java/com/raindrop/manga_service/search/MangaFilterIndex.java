@@ -0,0 +1,333 @@
+package com.raindrop.manga_service.search;
+
+import com.raindrop.manga_service.dto.request.AdvancedSearchRequest;
+import com.raindrop.manga_service.dto.response.FacetCountResponse;
+import com.raindrop.manga_service.dto.response.SearchFacetsResponse;
+import com.raindrop.manga_service.entity.MangaSummary;
+import com.raindrop.manga_service.enums.GenreMatchMode;
+import com.raindrop.manga_service.enums.MangaStatus;
+import com.raindrop.manga_service.repository.MangaSummaryRepository;
+import com.raindrop.manga_service.util.TextNormalizer;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitmap theo thể loại, tình trạng và năm phát hành trên số thứ tự (ordinal) liên tục của manga.
+ * Bộ lọc thể loại AND/OR/NOT kết hợp với tình trạng và năm được tính bằng phép and/or/andNot
+ * trên bitmap, không cần join qua bảng manga_genres. Số đếm theo nhóm (facet) cũng được tính
+ * từ đây. Được MangaSummaryService cập nhật cùng lúc với bảng manga_summary.
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+@Slf4j
+public class MangaFilterIndex {
+    MangaSummaryRepository mangaSummaryRepository;
+    ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    Map<String, Integer> ordinals = new HashMap<>();
+    List<IndexedManga> mangas = new ArrayList<>();
+    // Ordinal của manga đã xoá, được dùng lại để bitmap luôn dày đặc
+    Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    BitSet live = new BitSet();
+    Map<String, BitSet> genres = new HashMap<>();
+    // Tên hiển thị của thể loại theo tên đã chuẩn hoá
+    Map<String, String> genreNames = new HashMap<>();
+    Map<MangaStatus, BitSet> statuses = new EnumMap<>(MangaStatus.class);
+    Map<Integer, BitSet> years = new HashMap<>();
+
+    /**
+     * Lọc theo thể loại, tình trạng và năm của searchRequest
+     * @param searchRequest Điều kiện tìm kiếm, phần tiêu đề/tác giả bị bỏ qua
+     * @param candidates ID đã khớp phần văn bản (giữ nguyên thứ tự), null nếu không có điều kiện văn bản
+     * @return ID thoả mãn mọi điều kiện, null nếu không có điều kiện nào
+     */
+    public List<String> filter(AdvancedSearchRequest searchRequest, List<String> candidates) {
+        lock.readLock().lock();
+        try {
+            BitSet bits = evaluate(searchRequest);
+            if (bits == null) {
+                return candidates;
+            }
+            if (candidates == null) {
+                return bits.stream().mapToObj(ordinal -> mangas.get(ordinal).id()).toList();
+            }
+            return candidates.stream()
+                    .filter(id -> {
+                        Integer ordinal = ordinals.get(id);
+                        return ordinal != null && bits.get(ordinal);
+                    })
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void index(MangaSummary summary) {
+        IndexedManga indexed = new IndexedManga(summary.getId(), parseGenres(summary.getGenres()),
+                summary.getStatus(), summary.getYearOfRelease());
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(summary.getId());
+            if (ordinal != null) {
+                if (mangas.get(ordinal).equals(indexed)) {
+                    return;
+                }
+                clear(ordinal);
+            } else {
+                ordinal = freeOrdinals.isEmpty() ? mangas.size() : freeOrdinals.pop();
+                ordinals.put(summary.getId(), ordinal);
+            }
+            set(ordinal, indexed);
+            if (summary.getGenres() != null) {
+                for (String name : summary.getGenres().split(",")) {
+                    String key = TextNormalizer.fold(name.trim());
+                    if (!key.isEmpty()) {
+                        genreNames.put(key, name.trim());
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String mangaId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(mangaId);
+            if (ordinal != null) {
+                clear(ordinal);
+                mangas.set(ordinal, null);
+                freeOrdinals.push(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Dựng lại toàn bộ bitmap, ordinal được đánh lại từ 0
+     */
+    public void rebuild(Collection<MangaSummary> summaries) {
+        lock.writeLock().lock();
+        try {
+            ordinals.clear();
+            mangas.clear();
+            freeOrdinals.clear();
+            live.clear();
+            genres.clear();
+            genreNames.clear();
+            statuses.clear();
+            years.clear();
+            summaries.forEach(this::index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Built filter bitmaps for {} mangas", summaries.size());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuild(mangaSummaryRepository.findAll());
+    }
+
+    /**
+     * Đếm số manga theo thể loại, tình trạng và năm trong một lần duyệt.
+     * Mỗi nhóm được đếm trên tập thoả mọi điều kiện trừ điều kiện của chính nhóm đó.
+     * @param searchRequest Điều kiện tìm kiếm, phần tiêu đề/tác giả bị bỏ qua
+     * @param candidates ID đã khớp phần văn bản, null nếu không có điều kiện văn bản
+     */
+    public SearchFacetsResponse facets(AdvancedSearchRequest searchRequest, List<String> candidates) {
+        lock.readLock().lock();
+        try {
+            BitSet scope = live;
+            if (candidates != null) {
+                scope = new BitSet();
+                for (String id : candidates) {
+                    Integer ordinal = ordinals.get(id);
+                    if (ordinal != null) {
+                        scope.set(ordinal);
+                    }
+                }
+            }
+            BitSet genreBits = genreBits(searchRequest);
+            BitSet statusBits = statusBits(searchRequest);
+            BitSet yearBits = yearBits(searchRequest);
+
+            long total = 0;
+            Map<String, Long> genreCounts = new HashMap<>();
+            Map<MangaStatus, Long> statusCounts = new EnumMap<>(MangaStatus.class);
+            Map<Integer, Long> yearCounts = new TreeMap<>(Comparator.reverseOrder());
+            for (int ordinal = scope.nextSetBit(0); ordinal >= 0; ordinal = scope.nextSetBit(ordinal + 1)) {
+                boolean inGenre = genreBits == null || genreBits.get(ordinal);
+                boolean inStatus = statusBits == null || statusBits.get(ordinal);
+                boolean inYear = yearBits == null || yearBits.get(ordinal);
+                IndexedManga manga = mangas.get(ordinal);
+                if (inStatus && inYear) {
+                    manga.genres().forEach(genre -> genreCounts.merge(genre, 1L, Long::sum));
+                }
+                if (inGenre && inYear && manga.status() != null) {
+                    statusCounts.merge(manga.status(), 1L, Long::sum);
+                }
+                // Năm 0 là chưa rõ năm phát hành
+                if (inGenre && inStatus && manga.yearOfRelease() > 0) {
+                    yearCounts.merge(manga.yearOfRelease(), 1L, Long::sum);
+                }
+                if (inGenre && inStatus && inYear) {
+                    total++;
+                }
+            }
+
+            return SearchFacetsResponse.builder()
+                    .total(total)
+                    .genres(genreCounts.entrySet().stream()
+                            .sorted(Map.Entry.<String, Long>comparingByValue().reversed()
+                                    .thenComparing(Map.Entry.comparingByKey()))
+                            .map(entry -> new FacetCountResponse(genreNames.get(entry.getKey()), entry.getValue()))
+                            .toList())
+                    .statuses(statusCounts.entrySet().stream()
+                            .map(entry -> new FacetCountResponse(entry.getKey().name(), entry.getValue()))
+                            .toList())
+                    .years(yearCounts.entrySet().stream()
+                            .map(entry -> new FacetCountResponse(String.valueOf(entry.getKey()), entry.getValue()))
+                            .toList())
+                    .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Bitmap các manga thoả điều kiện, null nếu request không có điều kiện có cấu trúc nào
+     */
+    private BitSet evaluate(AdvancedSearchRequest searchRequest) {
+        BitSet result = null;
+        for (BitSet part : Arrays.asList(genreBits(searchRequest), statusBits(searchRequest), yearBits(searchRequest))) {
+            if (part == null) {
+                continue;
+            }
+            if (result == null) {
+                result = (BitSet) part.clone();
+            } else {
+                result.and(part);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Điều kiện thể loại: OR (ANY) hoặc AND (ALL) các thể loại được chọn, trừ đi các thể loại bị loại trừ
+     */
+    private BitSet genreBits(AdvancedSearchRequest searchRequest) {
+        BitSet result = null;
+        List<String> included = normalize(searchRequest.getGenres());
+        if (!included.isEmpty()) {
+            result = new BitSet();
+            if (searchRequest.getGenreMode() == GenreMatchMode.ALL) {
+                result.or(live);
+                for (String genre : included) {
+                    result.and(genres.getOrDefault(genre, new BitSet()));
+                }
+            } else {
+                for (String genre : included) {
+                    result.or(genres.getOrDefault(genre, new BitSet()));
+                }
+            }
+        }
+        List<String> excluded = normalize(searchRequest.getExcludedGenres());
+        if (!excluded.isEmpty()) {
+            result = result != null ? result : (BitSet) live.clone();
+            for (String genre : excluded) {
+                BitSet bits = genres.get(genre);
+                if (bits != null) {
+                    result.andNot(bits);
+                }
+            }
+        }
+        return result;
+    }
+
+    private BitSet statusBits(AdvancedSearchRequest searchRequest) {
+        return searchRequest.getStatus() == null ? null
+                : statuses.getOrDefault(searchRequest.getStatus(), new BitSet());
+    }
+
+    private BitSet yearBits(AdvancedSearchRequest searchRequest) {
+        return searchRequest.getYearOfRelease() == null ? null
+                : years.getOrDefault(searchRequest.getYearOfRelease(), new BitSet());
+    }
+
+    private void set(int ordinal, IndexedManga indexed) {
+        if (ordinal == mangas.size()) {
+            mangas.add(indexed);
+        } else {
+            mangas.set(ordinal, indexed);
+        }
+        live.set(ordinal);
+        indexed.genres().forEach(genre -> genres.computeIfAbsent(genre, key -> new BitSet()).set(ordinal));
+        if (indexed.status() != null) {
+            statuses.computeIfAbsent(indexed.status(), key -> new BitSet()).set(ordinal);
+        }
+        years.computeIfAbsent(indexed.yearOfRelease(), key -> new BitSet()).set(ordinal);
+    }
+
+    private void clear(int ordinal) {
+        IndexedManga indexed = mangas.get(ordinal);
+        live.clear(ordinal);
+        indexed.genres().forEach(genre -> {
+            clearBit(genres, genre, ordinal);
+            if (!genres.containsKey(genre)) {
+                genreNames.remove(genre);
+            }
+        });
+        if (indexed.status() != null) {
+            clearBit(statuses, indexed.status(), ordinal);
+        }
+        clearBit(years, indexed.yearOfRelease(), ordinal);
+    }
+
+    private static <K> void clearBit(Map<K, BitSet> bitmaps, K key, int ordinal) {
+        BitSet bits = bitmaps.get(key);
+        if (bits != null) {
+            bits.clear(ordinal);
+            if (bits.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Tên thể loại được so khớp không phân biệt hoa thường và dấu, giống collation của MySQL
+     */
+    private static List<String> normalize(List<String> names) {
+        if (names == null) {
+            return List.of();
+        }
+        return names.stream()
+                .filter(Objects::nonNull)
+                .map(name -> TextNormalizer.fold(name.trim()))
+                .filter(name -> !name.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    private static Set<String> parseGenres(String genres) {
+        if (genres == null || genres.isBlank()) {
+            return Set.of();
+        }
+        return Set.copyOf(normalize(Arrays.asList(genres.split(","))));
+    }
+
+    private record IndexedManga(String id, Set<String> genres, MangaStatus status, int yearOfRelease) {
+    }
+}
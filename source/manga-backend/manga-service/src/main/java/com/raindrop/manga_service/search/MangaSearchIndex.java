@@ -0,0 +1,242 @@
+package com.raindrop.manga_service.search;
+
+import com.raindrop.manga_service.entity.Manga;
+import com.raindrop.manga_service.event.MangaChangedEvent;
+import com.raindrop.manga_service.repository.MangaRepository;
+import com.raindrop.manga_service.util.TextNormalizer;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Chỉ mục đảo (inverted index) trong bộ nhớ cho tiêu đề, tác giả và mô tả manga.
+ * Từ điển của mỗi trường là skip list đã sắp xếp nên tìm theo tiền tố chỉ là
+ * một lần duyệt subMap. Điểm liên quan kiểu BM25, tiêu đề có trọng số cao nhất.
+ * Chỉ mục được dựng khi khởi động và cập nhật theo MangaChangedEvent.
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+@Slf4j
+public class MangaSearchIndex {
+    // Khớp theo tiền tố được tính điểm thấp hơn khớp nguyên từ
+    private static final double PREFIX_FACTOR = 0.6;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    public enum Field {
+        TITLE(3.0), AUTHOR(2.0), DESCRIPTION(1.0);
+
+        final double boost;
+
+        Field(double boost) {
+            this.boost = boost;
+        }
+    }
+
+    MangaRepository mangaRepository;
+    ReadWriteLock lock = new ReentrantReadWriteLock();
+    // term -> (mangaId -> số lần xuất hiện), mỗi trường một từ điển
+    Map<Field, ConcurrentSkipListMap<String, Map<String, Integer>>> postings = new EnumMap<>(Map.of(
+            Field.TITLE, new ConcurrentSkipListMap<>(),
+            Field.AUTHOR, new ConcurrentSkipListMap<>(),
+            Field.DESCRIPTION, new ConcurrentSkipListMap<>()));
+    Map<String, IndexedDocument> documents = new ConcurrentHashMap<>();
+    // Tổng số từ của mỗi trường trên toàn bộ manga, dùng cho độ dài trung bình
+    long[] totalLengths = new long[Field.values().length];
+
+    /**
+     * Tìm manga theo văn bản. Mọi từ trong câu truy vấn phải khớp (nguyên từ hoặc tiền tố)
+     * trong ít nhất một trường được chọn.
+     * @param query Câu truy vấn, có dấu hoặc không dấu
+     * @param fields Các trường cần tìm
+     * @param limit Số kết quả tối đa
+     * @return ID manga theo độ liên quan giảm dần
+     */
+    public List<String> search(String query, Set<Field> fields, int limit) {
+        List<String> tokens = TextNormalizer.tokenize(query);
+        if (tokens.isEmpty() || fields.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Map<String, Double> scores = null;
+            for (String token : new LinkedHashSet<>(tokens)) {
+                Map<String, Double> tokenScores = scoreToken(token, fields);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    // Giao: chỉ giữ manga khớp tất cả các từ
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((id, score) -> score + tokenScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<String, Double>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(limit)
+                    .map(Map.Entry::getKey)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Điều kiện văn bản của tìm kiếm nâng cao: tiêu đề tìm trong tiêu đề và mô tả,
+     * tác giả tìm trong tác giả; có cả hai thì lấy giao, giữ thứ tự theo tiêu đề.
+     * Không giới hạn số kết quả để tổng số và facet tính trên toàn bộ phần giao.
+     * @return ID theo độ liên quan, null nếu request không có điều kiện văn bản
+     */
+    public List<String> match(String title, String author) {
+        boolean hasTitle = title != null && !title.isBlank();
+        boolean hasAuthor = author != null && !author.isBlank();
+        if (!hasTitle && !hasAuthor) {
+            return null;
+        }
+        List<String> byAuthor = hasAuthor ? search(author, EnumSet.of(Field.AUTHOR), Integer.MAX_VALUE) : null;
+        if (!hasTitle) {
+            return byAuthor;
+        }
+        List<String> byTitle = search(title, EnumSet.of(Field.TITLE, Field.DESCRIPTION), Integer.MAX_VALUE);
+        if (byAuthor != null) {
+            Set<String> authorIds = new HashSet<>(byAuthor);
+            byTitle = byTitle.stream().filter(authorIds::contains).toList();
+        }
+        return byTitle;
+    }
+
+    private Map<String, Double> scoreToken(String token, Set<Field> fields) {
+        Map<String, Double> scores = new HashMap<>();
+        int totalDocuments = Math.max(1, documents.size());
+        for (Field field : fields) {
+            ConcurrentSkipListMap<String, Map<String, Integer>> dictionary = postings.get(field);
+            double averageLength = averageLength(field);
+            for (Map.Entry<String, Map<String, Integer>> entry
+                    : dictionary.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+                Map<String, Integer> docs = entry.getValue();
+                double idf = Math.log(1 + (totalDocuments - docs.size() + 0.5) / (docs.size() + 0.5));
+                double factor = entry.getKey().equals(token) ? 1.0 : PREFIX_FACTOR;
+                for (Map.Entry<String, Integer> posting : docs.entrySet()) {
+                    IndexedDocument document = documents.get(posting.getKey());
+                    if (document == null) {
+                        continue;
+                    }
+                    int frequency = posting.getValue();
+                    double norm = K1 * (1 - B + B * document.lengths().get(field) / averageLength);
+                    double score = field.boost * factor * idf * frequency * (K1 + 1) / (frequency + norm);
+                    scores.merge(posting.getKey(), score, Math::max);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private double averageLength(Field field) {
+        if (documents.isEmpty()) {
+            return 1;
+        }
+        return Math.max(1, (double) totalLengths[field.ordinal()] / documents.size());
+    }
+
+    /**
+     * Cập nhật chỉ mục sau khi dữ liệu manga đã được commit. Sự kiện chỉ đổi
+     * bộ đếm (lượt xem, comment) không làm thay đổi văn bản nên được bỏ qua.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMangaChanged(MangaChangedEvent event) {
+        try {
+            Optional<Manga> manga = mangaRepository.findById(event.mangaId());
+            if (manga.isPresent()) {
+                index(manga.get());
+            } else {
+                remove(event.mangaId());
+            }
+        } catch (Exception e) {
+            log.error("Error indexing manga {}: {}", event.mangaId(), e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Manga> mangas = mangaRepository.findAll();
+        mangas.forEach(this::index);
+        log.info("Indexed {} mangas for full-text search", mangas.size());
+    }
+
+    public void index(Manga manga) {
+        Map<Field, String> text = Map.of(
+                Field.TITLE, Objects.toString(manga.getTitle(), ""),
+                Field.AUTHOR, Objects.toString(manga.getAuthor(), ""),
+                Field.DESCRIPTION, Objects.toString(manga.getDescription(), ""));
+        IndexedDocument existing = documents.get(manga.getId());
+        if (existing != null && existing.text().equals(text)) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(manga.getId());
+            Map<Field, Integer> lengths = new EnumMap<>(Field.class);
+            for (Field field : Field.values()) {
+                List<String> tokens = TextNormalizer.tokenize(text.get(field));
+                lengths.put(field, tokens.size());
+                totalLengths[field.ordinal()] += tokens.size();
+                Map<String, Integer> frequencies = new HashMap<>();
+                tokens.forEach(token -> frequencies.merge(token, 1, Integer::sum));
+                frequencies.forEach((token, frequency) -> postings.get(field)
+                        .computeIfAbsent(token, key -> new ConcurrentHashMap<>())
+                        .put(manga.getId(), frequency));
+            }
+            documents.put(manga.getId(), new IndexedDocument(text, lengths));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String mangaId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(mangaId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(String mangaId) {
+        IndexedDocument document = documents.remove(mangaId);
+        if (document == null) {
+            return;
+        }
+        for (Field field : Field.values()) {
+            totalLengths[field.ordinal()] -= document.lengths().get(field);
+            ConcurrentSkipListMap<String, Map<String, Integer>> dictionary = postings.get(field);
+            for (String token : new HashSet<>(TextNormalizer.tokenize(document.text().get(field)))) {
+                Map<String, Integer> docs = dictionary.get(token);
+                if (docs != null) {
+                    docs.remove(mangaId);
+                    if (docs.isEmpty()) {
+                        dictionary.remove(token);
+                    }
+                }
+            }
+        }
+    }
+
+    private record IndexedDocument(Map<Field, String> text, Map<Field, Integer> lengths) {
+    }
+}
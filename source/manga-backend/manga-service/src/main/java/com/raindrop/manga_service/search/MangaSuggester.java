@@ -0,0 +1,291 @@
+package com.raindrop.manga_service.search;
+
+import com.raindrop.manga_service.dto.response.MangaSuggestionResponse;
+import com.raindrop.manga_service.entity.Manga;
+import com.raindrop.manga_service.event.MangaChangedEvent;
+import com.raindrop.manga_service.repository.MangaRepository;
+import com.raindrop.manga_service.util.TextNormalizer;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Gợi ý khi gõ tìm kiếm, dựa trên radix trie (trie nén) của tiêu đề và tác giả đã bỏ dấu.
+ * Mỗi nút giữ sẵn top-k manga phổ biến nhất trong cây con của nó, nên một truy vấn
+ * chỉ là đi theo tiền tố rồi trả danh sách có sẵn, không phải duyệt cây con.
+ * Trie được cập nhật từng manga theo MangaChangedEvent.
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+@Slf4j
+public class MangaSuggester {
+    // Số gợi ý tối đa được giữ ở mỗi nút
+    public static final int MAX_SUGGESTIONS = 20;
+    // Một lượt thích được tính bằng số lượt xem này khi xếp hạng
+    private static final int LOVE_WEIGHT = 10;
+
+    MangaRepository mangaRepository;
+    ReadWriteLock lock = new ReentrantReadWriteLock();
+    Node root = new Node("");
+    Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param query Chuỗi người dùng đang gõ, có dấu hoặc không dấu
+     * @param limit Số gợi ý cần lấy
+     * @return Manga có tiêu đề, tác giả hoặc một từ trong tiêu đề bắt đầu bằng query, phổ biến nhất trước
+     */
+    public List<MangaSuggestionResponse> suggest(String query, int limit) {
+        String key = normalize(query);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = findPrefix(key);
+            if (node == null) {
+                return List.of();
+            }
+            return node.top.stream()
+                    .limit(Math.max(1, Math.min(limit, MAX_SUGGESTIONS)))
+                    .map(entry -> MangaSuggestionResponse.builder()
+                            .id(entry.id())
+                            .title(entry.title())
+                            .author(entry.author())
+                            .coverUrl(entry.coverUrl())
+                            .build())
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMangaChanged(MangaChangedEvent event) {
+        try {
+            Optional<Manga> manga = mangaRepository.findById(event.mangaId());
+            if (manga.isPresent()) {
+                add(manga.get());
+            } else {
+                remove(event.mangaId());
+            }
+        } catch (Exception e) {
+            log.error("Error updating suggestions for manga {}: {}", event.mangaId(), e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Manga> mangas = mangaRepository.findAll();
+        mangas.forEach(this::add);
+        log.info("Built suggestion trie for {} mangas", mangas.size());
+    }
+
+    public void add(Manga manga) {
+        Entry entry = new Entry(manga.getId(), manga.getTitle(), manga.getAuthor(), manga.getCoverUrl(),
+                (long) manga.getViews() + (long) manga.getLoves() * LOVE_WEIGHT, keys(manga));
+        if (entry.equals(entries.get(manga.getId()))) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(manga.getId());
+            for (String key : entry.keys()) {
+                insert(key, entry);
+            }
+            entries.put(entry.id(), entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String mangaId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(mangaId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Khoá của một manga: tiêu đề đầy đủ, tác giả và phần tiêu đề bắt đầu từ mỗi từ,
+     * để "hai tac" cũng gợi ý được "Đảo Hải Tặc"
+     */
+    private Set<String> keys(Manga manga) {
+        Set<String> keys = new LinkedHashSet<>();
+        List<String> titleTokens = TextNormalizer.tokenize(manga.getTitle());
+        for (int i = 0; i < titleTokens.size(); i++) {
+            keys.add(String.join(" ", titleTokens.subList(i, titleTokens.size())));
+        }
+        String author = normalize(manga.getAuthor());
+        if (!author.isEmpty()) {
+            keys.add(author);
+        }
+        return keys;
+    }
+
+    private static String normalize(String text) {
+        return String.join(" ", TextNormalizer.tokenize(text));
+    }
+
+    private void insert(String key, Entry entry) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null) {
+                child = new Node(key.substring(i));
+                node.children.put(key.charAt(i), child);
+                i = key.length();
+            } else {
+                int common = commonPrefixLength(child.label, key, i);
+                if (common < child.label.length()) {
+                    // Tách cạnh: nút trung gian giữ phần chung, nút cũ giữ phần còn lại
+                    Node middle = new Node(child.label.substring(0, common));
+                    child.label = child.label.substring(common);
+                    middle.children.put(child.label.charAt(0), child);
+                    middle.top.addAll(child.top);
+                    node.children.put(middle.label.charAt(0), middle);
+                    child = middle;
+                }
+                i += common;
+            }
+            node = child;
+            path.add(node);
+        }
+        node.terminals.add(entry);
+        for (Node onPath : path) {
+            offer(onPath.top, entry);
+        }
+    }
+
+    private void removeLocked(String mangaId) {
+        Entry entry = entries.remove(mangaId);
+        if (entry == null) {
+            return;
+        }
+        for (String key : entry.keys()) {
+            List<Node> path = findExact(key);
+            if (path == null) {
+                continue;
+            }
+            path.get(path.size() - 1).terminals.remove(entry);
+            // Tính lại top-k từ dưới lên, nút con đã đúng trước khi tới nút cha
+            for (int i = path.size() - 1; i >= 0; i--) {
+                Node node = path.get(i);
+                if (node.top.stream().noneMatch(top -> top.id().equals(mangaId))) {
+                    break;
+                }
+                recompute(node);
+            }
+            // Bỏ nút lá rỗng
+            Node last = path.get(path.size() - 1);
+            if (path.size() > 1 && last.terminals.isEmpty() && last.children.isEmpty()) {
+                path.get(path.size() - 2).children.remove(last.label.charAt(0));
+            }
+        }
+    }
+
+    private void recompute(Node node) {
+        List<Entry> top = new ArrayList<>();
+        node.terminals.forEach(entry -> offer(top, entry));
+        node.children.values().forEach(child -> child.top.forEach(entry -> offer(top, entry)));
+        node.top.clear();
+        node.top.addAll(top);
+    }
+
+    /**
+     * Thêm vào danh sách top-k (đã sắp xếp), mỗi manga chỉ xuất hiện một lần
+     */
+    private static void offer(List<Entry> top, Entry entry) {
+        if (top.stream().anyMatch(existing -> existing.id().equals(entry.id()))) {
+            return;
+        }
+        int position = 0;
+        while (position < top.size() && top.get(position).popularity() >= entry.popularity()) {
+            position++;
+        }
+        if (position < MAX_SUGGESTIONS) {
+            top.add(position, entry);
+            if (top.size() > MAX_SUGGESTIONS) {
+                top.remove(top.size() - 1);
+            }
+        }
+    }
+
+    private Node findPrefix(String prefix) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            Node child = node.children.get(prefix.charAt(i));
+            if (child == null) {
+                return null;
+            }
+            int common = commonPrefixLength(child.label, prefix, i);
+            if (i + common == prefix.length()) {
+                // Tiền tố kết thúc giữa hoặc cuối cạnh: mọi khoá trong cây con đều khớp
+                return child;
+            }
+            if (common < child.label.length()) {
+                return null;
+            }
+            i += common;
+            node = child;
+        }
+        return node;
+    }
+
+    private List<Node> findExact(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null || !key.startsWith(child.label, i)) {
+                return null;
+            }
+            i += child.label.length();
+            node = child;
+            path.add(node);
+        }
+        return path;
+    }
+
+    private static int commonPrefixLength(String label, String key, int offset) {
+        int length = 0;
+        while (length < label.length() && offset + length < key.length()
+                && label.charAt(length) == key.charAt(offset + length)) {
+            length++;
+        }
+        return length;
+    }
+
+    private record Entry(String id, String title, String author, String coverUrl, long popularity, Set<String> keys) {
+    }
+
+    private static final class Node {
+        String label;
+        final Map<Character, Node> children = new HashMap<>();
+        // Manga có khoá kết thúc tại nút này
+        final Set<Entry> terminals = new HashSet<>();
+        final List<Entry> top = new ArrayList<>();
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.raindrop.manga_service.search;
+
+import com.raindrop.manga_service.entity.MangaViewHistory;
+import com.raindrop.manga_service.enums.TrendingWindow;
+import com.raindrop.manga_service.repository.MangaViewHistoryRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lượt xem theo giờ của từng manga trong 7 ngày gần nhất, giữ trong vòng đệm int[168]
+ * (ô của giờ h là h % 168, ô cũ được xoá khi vòng quay tới). Bảng xếp hạng của mỗi khoảng
+ * thời gian được tính lại định kỳ (top-k bằng heap giới hạn), request chỉ đọc danh sách có sẵn.
+ * Phần lượt xem chưa lưu được cộng dồn vào dòng manga_view_history theo chu kỳ; dòng được
+ * khoá ghi trong lúc cộng nên nhiều instance cùng ghi không đè lên nhau.
+ */
+@Component
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+@Slf4j
+public class MangaTrendingIndex {
+    // Số giờ được giữ lại, đủ cho khoảng dài nhất (7 ngày)
+    public static final int HOURS = 168;
+    // Số manga tối đa được giữ trong mỗi bảng xếp hạng
+    public static final int MAX_TRENDING = 100;
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+
+    MangaViewHistoryRepository mangaViewHistoryRepository;
+    TransactionTemplate transactionTemplate;
+    Map<String, Series> series = new ConcurrentHashMap<>();
+    Map<TrendingWindow, List<Ranked>> rankings = new ConcurrentHashMap<>();
+
+    public MangaTrendingIndex(MangaViewHistoryRepository mangaViewHistoryRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.mangaViewHistoryRepository = mangaViewHistoryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Cộng lượt xem vào ô của giờ hiện tại
+     * @param mangaId ID của manga
+     * @param views Số lượt xem
+     */
+    public void record(String mangaId, long views) {
+        series.computeIfAbsent(mangaId, id -> new Series()).add(currentHour(), (int) views);
+    }
+
+    /**
+     * @param window Khoảng thời gian
+     * @param limit Số manga cần lấy
+     * @return Manga thịnh hành nhất trước, theo bảng xếp hạng đã tính gần nhất
+     */
+    public List<Ranked> top(TrendingWindow window, int limit) {
+        List<Ranked> ranking = rankings.getOrDefault(window, List.of());
+        return ranking.subList(0, Math.min(Math.max(1, limit), ranking.size()));
+    }
+
+    /**
+     * Xoá lịch sử lượt xem đã lưu, chạy trong transaction của nơi gọi
+     */
+    public void deleteHistory(String mangaId) {
+        mangaViewHistoryRepository.deleteById(mangaId);
+    }
+
+    /**
+     * Bỏ manga khỏi chuỗi lượt xem trong bộ nhớ
+     */
+    public void remove(String mangaId) {
+        series.remove(mangaId);
+    }
+
+    /**
+     * Tính lại bảng xếp hạng của mỗi khoảng thời gian: điểm của mỗi manga là tổng lượt xem
+     * theo giờ nhân trọng số, top-k được chọn bằng min-heap kích thước k (O(n log k))
+     */
+    @Scheduled(fixedDelayString = "${app.trending.refresh-interval-ms:60000}")
+    public void refreshRankings() {
+        long hour = currentHour();
+        for (TrendingWindow window : TrendingWindow.values()) {
+            PriorityQueue<Ranked> heap = new PriorityQueue<>(Comparator.comparingDouble(Ranked::score));
+            series.forEach((mangaId, counts) -> {
+                Ranked ranked = counts.rank(mangaId, hour, window);
+                if (ranked.views() == 0) {
+                    return;
+                }
+                if (heap.size() < MAX_TRENDING) {
+                    heap.add(ranked);
+                } else if (ranked.score() > heap.peek().score()) {
+                    heap.poll();
+                    heap.add(ranked);
+                }
+            });
+            List<Ranked> ranking = new ArrayList<>(heap);
+            ranking.sort(Comparator.comparingDouble(Ranked::score).reversed());
+            rankings.put(window, List.copyOf(ranking));
+        }
+    }
+
+    /**
+     * Cộng phần lượt xem chưa lưu của mỗi manga vào dòng trong database, sau đó lấy
+     * dòng đã gộp (có cả phần của instance khác) làm số liệu trong bộ nhớ. Các dòng được khoá
+     * ghi tới khi commit; nếu hai instance cùng tạo một dòng mới thì instance sau lỗi khoá chính
+     * và phần của nó được trả lại để cộng vào dòng đã có ở lần sau.
+     */
+    @Scheduled(fixedDelayString = "${app.trending.flush-interval-ms:60000}")
+    public void flush() {
+        Map<String, Pending> pending = new HashMap<>();
+        series.forEach((mangaId, counts) -> {
+            Pending taken = counts.takePending();
+            if (taken != null) {
+                pending.put(mangaId, taken);
+            }
+        });
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<String, MangaViewHistory> merged = new HashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Map<String, MangaViewHistory> stored = new HashMap<>();
+                mangaViewHistoryRepository.findAllByIdForUpdate(pending.keySet()).forEach(row -> stored.put(row.getMangaId(), row));
+                pending.forEach((mangaId, taken) -> {
+                    MangaViewHistory row = stored.get(mangaId);
+                    long hour = row == null ? taken.hour() : Math.max(row.getLastHour(), taken.hour());
+                    int[] buckets = new int[HOURS];
+                    if (row != null) {
+                        addAligned(buckets, hour, decode(row.getBuckets()), row.getLastHour());
+                    } else {
+                        row = MangaViewHistory.builder().mangaId(mangaId).build();
+                    }
+                    addAligned(buckets, hour, taken.counts(), taken.hour());
+                    row.setBuckets(encode(buckets));
+                    row.setLastHour(hour);
+                    merged.put(mangaId, row);
+                });
+                mangaViewHistoryRepository.saveAll(merged.values());
+            });
+        } catch (Exception e) {
+            // Trả lại phần chưa lưu để lần sau thử lại
+            log.error("Error saving view history of {} mangas: {}", pending.size(), e.getMessage());
+            pending.forEach((mangaId, taken) ->
+                    series.computeIfAbsent(mangaId, id -> new Series()).restorePending(taken));
+            return;
+        }
+        merged.forEach((mangaId, row) -> {
+            Series counts = series.get(mangaId);
+            if (counts != null) {
+                counts.replaceCounts(decode(row.getBuckets()), row.getLastHour());
+            }
+        });
+        log.debug("Saved view history of {} mangas", merged.size());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        mangaViewHistoryRepository.findAll().forEach(row ->
+                series.computeIfAbsent(row.getMangaId(), id -> new Series())
+                        .replaceCounts(decode(row.getBuckets()), row.getLastHour()));
+        refreshRankings();
+        log.info("Loaded view history of {} mangas", series.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static long currentHour() {
+        return System.currentTimeMillis() / MILLIS_PER_HOUR;
+    }
+
+    private static int slot(long hour) {
+        return (int) Math.floorMod(hour, (long) HOURS);
+    }
+
+    /**
+     * Cộng các ô của source (ô mới nhất là sourceHour) vào target (ô mới nhất là targetHour),
+     * bỏ qua các giờ nằm ngoài vòng của target
+     */
+    private static void addAligned(int[] target, long targetHour, int[] source, long sourceHour) {
+        for (int age = 0; age < HOURS; age++) {
+            long hour = sourceHour - age;
+            if (hour <= targetHour && hour > targetHour - HOURS) {
+                target[slot(hour)] += source[slot(hour)];
+            }
+        }
+    }
+
+    private static byte[] encode(int[] buckets) {
+        ByteBuffer buffer = ByteBuffer.allocate(buckets.length * Integer.BYTES);
+        buffer.asIntBuffer().put(buckets);
+        return buffer.array();
+    }
+
+    private static int[] decode(byte[] bytes) {
+        int[] buckets = new int[HOURS];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(buckets, 0, Math.min(HOURS, bytes.length / Integer.BYTES));
+        return buckets;
+    }
+
+    /**
+     * Một manga trong bảng xếp hạng
+     * @param views Số lượt xem trong khoảng thời gian
+     * @param score Điểm đã nhân trọng số
+     */
+    public record Ranked(String mangaId, long views, double score) {
+    }
+
+    private record Pending(int[] counts, long hour) {
+    }
+
+    /**
+     * Vòng đệm lượt xem theo giờ của một manga. counts là tổng đã biết (đã lưu cộng với
+     * chưa lưu), pending là phần chưa lưu; cả hai dùng chung vị trí ô và giờ mới nhất.
+     */
+    private static final class Series {
+        private final int[] counts = new int[HOURS];
+        private final int[] pending = new int[HOURS];
+        private long lastHour = Long.MIN_VALUE;
+        private boolean dirty;
+
+        synchronized void add(long hour, int views) {
+            roll(hour);
+            // Giờ hiện tại nhỏ hơn lastHour (đồng hồ lệch giữa các instance) thì cộng vào ô mới nhất
+            int index = slot(Math.max(hour, lastHour));
+            counts[index] += views;
+            pending[index] += views;
+            dirty = true;
+        }
+
+        synchronized Ranked rank(String mangaId, long hour, TrendingWindow window) {
+            roll(hour);
+            double[] weights = window.getWeights();
+            long views = 0;
+            double score = 0;
+            for (int age = 0; age < window.getHours(); age++) {
+                int count = counts[slot(lastHour - age)];
+                views += count;
+                score += count * weights[age];
+            }
+            return new Ranked(mangaId, views, score);
+        }
+
+        synchronized Pending takePending() {
+            if (!dirty) {
+                return null;
+            }
+            Pending taken = new Pending(pending.clone(), lastHour);
+            Arrays.fill(pending, 0);
+            dirty = false;
+            return taken;
+        }
+
+        synchronized void restorePending(Pending taken) {
+            roll(taken.hour());
+            addAligned(pending, lastHour, taken.counts(), taken.hour());
+            dirty = true;
+        }
+
+        /**
+         * Thay số liệu bằng dòng đã lưu, cộng thêm phần chưa lưu phát sinh sau khi lấy pending
+         */
+        synchronized void replaceCounts(int[] stored, long storedHour) {
+            roll(storedHour);
+            Arrays.fill(counts, 0);
+            addAligned(counts, lastHour, stored, storedHour);
+            for (int i = 0; i < HOURS; i++) {
+                counts[i] += pending[i];
+            }
+        }
+
+        private void roll(long hour) {
+            if (lastHour == Long.MIN_VALUE) {
+                lastHour = hour;
+                return;
+            }
+            if (hour <= lastHour) {
+                return;
+            }
+            if (hour - lastHour >= HOURS) {
+                Arrays.fill(counts, 0);
+                Arrays.fill(pending, 0);
+            } else {
+                for (long h = lastHour + 1; h <= hour; h++) {
+                    counts[slot(h)] = 0;
+                    pending[slot(h)] = 0;
+                }
+            }
+            lastHour = hour;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.raindrop.manga_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.raindrop.manga_service.dto.response.ChapterResponse;
+import com.raindrop.manga_service.dto.response.MangaResponse;
+import com.raindrop.manga_service.event.MangaChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Cache đọc qua (read-through) cho GET /mangas/{id} và GET /chapters/{id}.
+ * Giá trị được lưu dưới dạng JSON đã serialize nên mỗi lần đọc trả về một object mới,
+ * nơi gọi có sửa response cũng không làm hỏng cache. Lượt xem/thích thay đổi liên tục
+ * nên entry có TTL ngắn, các thay đổi nội dung thì xoá entry ngay.
+ */
+@Component
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class CatalogCache {
+    ObjectMapper objectMapper;
+    Cache<String, byte[]> mangas;
+    Cache<String, byte[]> chapters;
+
+    public CatalogCache(ObjectMapper objectMapper,
+                        @Value("${app.cache.catalog.max-mangas:10000}") long maxMangas,
+                        @Value("${app.cache.catalog.max-chapters:20000}") long maxChapters,
+                        @Value("${app.cache.catalog.ttl:60s}") Duration ttl,
+                        MeterRegistry registry) {
+        this.objectMapper = objectMapper;
+        this.mangas = Caffeine.newBuilder()
+                .maximumSize(maxMangas)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.chapters = Caffeine.newBuilder()
+                .maximumSize(maxChapters)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, mangas, "manga.catalog.mangas");
+        CaffeineCacheMetrics.monitor(registry, chapters, "manga.catalog.chapters");
+    }
+
+    /**
+     * Lấy manga từ cache, gọi loader nếu chưa có. Nhiều request cùng lúc cho một id
+     * chỉ gọi loader một lần; loader ném lỗi (không tìm thấy) thì không có gì được cache.
+     */
+    public MangaResponse getManga(String id, Supplier<MangaResponse> loader) {
+        return read(mangas.get(id, key -> write(loader.get())), MangaResponse.class);
+    }
+
+    public ChapterResponse getChapter(String id, Supplier<ChapterResponse> loader) {
+        return read(chapters.get(id, key -> write(loader.get())), ChapterResponse.class);
+    }
+
+    public void evictManga(String mangaId) {
+        mangas.invalidate(mangaId);
+    }
+
+    public void evictChapter(String chapterId) {
+        chapters.invalidate(chapterId);
+    }
+
+    /**
+     * Xoá lại sau khi transaction commit, tránh trường hợp một request đọc giữa lúc xoá
+     * và lúc commit đưa dữ liệu cũ trở lại cache. Cũng bắt các thay đổi từ Kafka consumer.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMangaChanged(MangaChangedEvent event) {
+        evictManga(event.mangaId());
+    }
+
+    private byte[] write(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private <T> T read(byte[] bytes, Class<T> type) {
+        try {
+            return objectMapper.readValue(bytes, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
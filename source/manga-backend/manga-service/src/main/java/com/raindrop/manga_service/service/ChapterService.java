@@ -3,42 +3,67 @@ package com.raindrop.manga_service.service;
 import com.raindrop.manga_service.dto.request.ChapterRequest;
 import com.raindrop.manga_service.dto.response.ApiResponse;
 import com.raindrop.manga_service.dto.response.ChapterResponse;
+import com.raindrop.manga_service.dto.response.CursorPageResponse;
 import com.raindrop.manga_service.dto.response.FileDataResponse;
 import com.raindrop.manga_service.dto.response.PageResponse;
 import com.raindrop.manga_service.entity.Chapter;
 import com.raindrop.manga_service.entity.Manga;
 import com.raindrop.manga_service.entity.Page;
 import com.raindrop.manga_service.enums.ErrorCode;
+import com.raindrop.manga_service.event.MangaChangedEvent;
 import com.raindrop.manga_service.exception.AppException;
 import com.raindrop.manga_service.mapper.ChapterMapper;
 import com.raindrop.manga_service.repository.ChapterRepository;
 import com.raindrop.manga_service.repository.MangaRepository;
 import com.raindrop.manga_service.repository.PageRepository;
+import com.raindrop.manga_service.repository.projection.ChapterListItem;
 import com.raindrop.manga_service.repository.httpclient.UploadClient;
+import com.raindrop.manga_service.util.KeysetCursor;
 import jakarta.transaction.Transactional;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 
 @Service
 @RequiredArgsConstructor
 @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
 @Slf4j
 public class ChapterService {
+    private static final String PAGE_UPLOAD_MODE_PARALLEL = "parallel";
+    private static final String CHAPTER_CURSOR_KEY = "CHAPTER_NUMBER";
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
     ChapterRepository chapterRepository;
     ChapterMapper chapterMapper;
     UploadClient uploadClient;
     MangaRepository mangaRepository;
     PageRepository pageRepository;
-    MangaStatsService mangaStatsService;
+    ExecutorService pageUploadExecutor;
+    ApplicationEventPublisher eventPublisher;
+    CatalogCache catalogCache;
+    ViewCounter viewCounter;
+    UniqueReaderCounter uniqueReaderCounter;
+
+    @Value("${app.chapter.page-upload.mode:batch}")
+    @NonFinal
+    String pageUploadMode;
 
     @Transactional
     public ChapterResponse createChapter(ChapterRequest request) {
@@ -60,24 +85,23 @@ public class ChapterService {
         ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
         var header = attributes.getRequest().getHeader("Authorization");
 
-        // **Tạo và lưu các Page, gán Chapter cho từng Page**
+        // **Upload các trang, tên file trả về theo đúng thứ tự trang**
+        List<String> pageNames = PAGE_UPLOAD_MODE_PARALLEL.equalsIgnoreCase(pageUploadMode)
+                ? uploadPagesInParallel(header, request.getPages())
+                : uploadPagesInBatch(header, request.getPages());
+        // Nếu tạo chapter thất bại thì xoá các trang đã upload
+        deletePagesOnRollback(header, pageNames);
+
+        // **Tạo các Page, gán Chapter cho từng Page và lưu trong một lần**
         List<Page> pages = new ArrayList<>();
-        for (int i = 0; i < request.getPages().size(); i++) {
-            MultipartFile file = request.getPages().get(i);
-            try {
-                ApiResponse<FileDataResponse> apiResponse = uploadClient.uploadMedia(header, file);
-                Page page = Page.builder()
-                        .index(i)
-                        .pageUrl(apiResponse.getResult().getName())
-                        .chapter(chapter) // Gán Chapter cho Page
-                        .build();
-                page = pageRepository.save(page); // Lưu Page
-                pages.add(page); // Thêm vào danh sách pages
-            } catch (Exception e) {
-                log.error("Error uploading file [{}]: {}", i, e.getMessage());
-                throw new AppException(ErrorCode.PAGE_UPLOAD_FAILED);
-            }
+        for (int i = 0; i < pageNames.size(); i++) {
+            pages.add(Page.builder()
+                    .index(i)
+                    .pageUrl(pageNames.get(i))
+                    .chapter(chapter) // Gán Chapter cho Page
+                    .build());
         }
+        pages = pageRepository.saveAll(pages);
 
         // **Cập nhật danh sách pages trong Chapter (đồng bộ hóa)**
         chapter.setPages(pages);
@@ -89,9 +113,9 @@ public class ChapterService {
         manga.setLastChapterAddedAt(LocalDateTime.now());
         mangaRepository.save(manga);
 
-        // Cập nhật tổng số lượt xem và comment của manga
-        mangaStatsService.updateMangaTotalViews(manga.getId());
-        mangaStatsService.updateMangaTotalComments(manga.getId());
+        // Chapter mới chưa có lượt xem và comment nên tổng của manga không đổi
+        catalogCache.evictManga(manga.getId());
+        eventPublisher.publishEvent(new MangaChangedEvent(manga.getId()));
 
         // **Tạo response**
         return ChapterResponse.builder()
@@ -109,43 +133,104 @@ public class ChapterService {
                 .build();
     }
 
-    public ChapterResponse getChapterById(String id) {
-        Chapter chapter = chapterRepository.findById(id)
-                .orElseThrow(() -> new AppException(ErrorCode.CHAPTER_NOT_FOUND));
-        return chapterMapper.toChapterResponse(chapter);
+    /**
+     * Upload toàn bộ trang trong một request tới upload-service
+     */
+    private List<String> uploadPagesInBatch(String header, List<MultipartFile> files) {
+        List<FileDataResponse> uploadedFiles;
+        try {
+            ApiResponse<List<FileDataResponse>> apiResponse = uploadClient.uploadMediaBatch(header,
+                    files.toArray(new MultipartFile[0]));
+            uploadedFiles = apiResponse.getResult();
+        } catch (Exception e) {
+            log.error("Error uploading {} pages: {}", files.size(), e.getMessage());
+            throw new AppException(ErrorCode.PAGE_UPLOAD_FAILED);
+        }
+        if (uploadedFiles == null || uploadedFiles.size() != files.size()) {
+            throw new AppException(ErrorCode.PAGE_UPLOAD_FAILED);
+        }
+        return uploadedFiles.stream().map(FileDataResponse::getName).toList();
     }
 
     /**
-     * Tăng lượt xem của chapter và cập nhật tổng lượt xem của manga
-     *
-     * @param id ID của chapter
-     * @return Thông tin chapter sau khi cập nhật lượt xem
+     * Upload từng trang song song, số request đồng thời bị giới hạn bởi pageUploadExecutor.
+     * Nếu một trang lỗi thì các trang đã upload thành công sẽ bị xoá.
      */
-    public ChapterResponse incrementChapterViews(String id) {
-        log.info("Incrementing views for chapter: {}", id);
+    private List<String> uploadPagesInParallel(String header, List<MultipartFile> files) {
+        List<CompletableFuture<String>> futures = files.stream()
+                .map(file -> CompletableFuture.supplyAsync(
+                        () -> uploadClient.uploadMedia(header, file).getResult().getName(), pageUploadExecutor))
+                .toList();
 
-        // Kiểm tra chapter có tồn tại không
-        Chapter chapter = chapterRepository.findById(id)
-                .orElseThrow(() -> new AppException(ErrorCode.CHAPTER_NOT_FOUND));
+        List<String> pageNames = new ArrayList<>();
+        boolean failed = false;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                pageNames.add(futures.get(i).join());
+            } catch (CompletionException e) {
+                log.error("Error uploading file [{}]: {}", i, e.getCause().getMessage());
+                failed = true;
+            }
+        }
 
-        // Tăng lượt xem của chapter mà không cập nhật thời gian updatedAt
-        chapterRepository.incrementViews(id);
+        if (failed) {
+            deletePages(header, pageNames);
+            throw new AppException(ErrorCode.PAGE_UPLOAD_FAILED);
+        }
+        return pageNames;
+    }
 
-        // Cập nhật tổng lượt xem của manga mà không cập nhật thời gian updatedAt
-        mangaRepository.incrementViews(chapter.getManga().getId());
+    private void deletePagesOnRollback(String header, List<String> pageNames) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    deletePages(header, pageNames);
+                }
+            }
+        });
+    }
 
-        // Cập nhật tổng số lượt xem của manga bằng tổng số lượt xem của tất cả các chapter
-        mangaStatsService.updateMangaTotalViews(chapter.getManga().getId());
+    private void deletePages(String header, List<String> pageNames) {
+        for (String pageName : pageNames) {
+            try {
+                uploadClient.deleteMedia(header, pageName);
+            } catch (Exception e) {
+                log.error("Error deleting uploaded page {}: {}", pageName, e.getMessage());
+            }
+        }
+    }
 
-        // Lấy lại chapter đã cập nhật lượt xem
-        chapter = chapterRepository.findById(id).orElseThrow(() -> new AppException(ErrorCode.CHAPTER_NOT_FOUND));
+    public ChapterResponse getChapterById(String id) {
+        ChapterResponse response = catalogCache.getChapter(id, () -> {
+            Chapter chapter = chapterRepository.findById(id)
+                    .orElseThrow(() -> new AppException(ErrorCode.CHAPTER_NOT_FOUND));
+            return chapterMapper.toChapterResponse(chapter);
+        });
+        response.setUniqueReaders(uniqueReaderCounter.chapterReaders(id));
+        return response;
+    }
 
-        log.info("Views updated for chapter: {}, new views: {}", id, chapter.getViews());
-        log.info("Total views updated for manga: {}, new total views: {}", chapter.getManga().getId(), chapter.getManga().getViews());
+    /**
+     * Tăng lượt xem của chapter và cập nhật tổng lượt xem của manga
+     *
+     * @param id ID của chapter
+     * @param readerHash Giá trị băm của người đọc, cùng người đọc tải lại trang không được tính thêm
+     * @return Thông tin chapter sau khi cập nhật lượt xem
+     */
+    public ChapterResponse incrementChapterViews(String id, long readerHash) {
+        // Lượt xem được cộng dồn trong bộ nhớ và ghi xuống database theo lô
+        viewCounter.record(id, readerHash);
 
-        return chapterMapper.toChapterResponse(chapter);
+        ChapterResponse response = getChapterById(id);
+        response.setViews(response.getViews() + (int) viewCounter.pendingViews(id));
+        return response;
     }
 
+
     /**
      * Lấy tất cả chapter
      *
@@ -167,17 +252,58 @@ public class ChapterService {
     public List<ChapterResponse> getChaptersByMangaId(String mangaId) {
         log.info("Getting chapters for manga: {}", mangaId);
 
-        // Kiểm tra manga có tồn tại không
-        Manga manga = mangaRepository.findById(mangaId)
-                .orElseThrow(() -> new AppException(ErrorCode.MANGA_NOT_FOUND));
-
-        Set<Chapter> chapters = chapterRepository.findByManga(manga);
-        List<ChapterResponse> chapterResponses = chapters.stream()
-                .sorted(Comparator.comparing(Chapter::getChapterNumber))
+        // Một câu truy vấn, đã sắp xếp theo số chapter, không nạp danh sách trang
+        List<ChapterResponse> chapterResponses = chapterRepository.findListItemsByMangaId(mangaId).stream()
                 .map(chapterMapper::toChapterResponse)
                 .toList();
 
+        // Chỉ khi không có chapter mới cần kiểm tra manga có tồn tại không
+        if (chapterResponses.isEmpty() && !mangaRepository.existsById(mangaId)) {
+            throw new AppException(ErrorCode.MANGA_NOT_FOUND);
+        }
+
         log.info("Retrieved {} chapters for manga: {}", chapterResponses.size(), mangaId);
         return chapterResponses;
     }
+
+
+    /**
+     * Lấy danh sách chapter của manga theo cursor, chapter mới nhất trước
+     *
+     * @param mangaId ID của manga
+     * @param cursor Token của trang trước, null cho trang đầu
+     * @param size Số chapter mỗi trang
+     * @return Trang chapter kèm token của trang sau
+     */
+    public CursorPageResponse<ChapterResponse> scrollChaptersByMangaId(String mangaId, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        // Lấy thêm một phần tử để biết còn trang sau hay không
+        Pageable pageable = Pageable.ofSize(limit + 1);
+
+        List<ChapterListItem> chapters;
+        if (cursor == null || cursor.isBlank()) {
+            chapters = chapterRepository.findLatestByMangaId(mangaId, pageable);
+        } else {
+            KeysetCursor position = KeysetCursor.decode(cursor, CHAPTER_CURSOR_KEY);
+            int chapterNumber;
+            try {
+                chapterNumber = Integer.parseInt(position.value());
+            } catch (NumberFormatException e) {
+                throw new AppException(ErrorCode.INVALID_CURSOR);
+            }
+            chapters = chapterRepository.findByMangaIdAfter(mangaId, chapterNumber, position.id(), pageable);
+        }
+
+        boolean hasNext = chapters.size() > limit;
+        List<ChapterListItem> content = hasNext ? chapters.subList(0, limit) : chapters;
+        String nextCursor = null;
+        if (hasNext) {
+            ChapterListItem last = content.get(content.size() - 1);
+            nextCursor = new KeysetCursor(CHAPTER_CURSOR_KEY, String.valueOf(last.getChapterNumber()), last.getId()).encode();
+        }
+        return CursorPageResponse.<ChapterResponse>builder()
+                .content(content.stream().map(chapterMapper::toChapterResponse).toList())
+                .nextCursor(nextCursor)
+                .build();
+    }
 }
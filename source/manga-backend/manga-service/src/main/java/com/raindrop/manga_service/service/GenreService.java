@@ -3,13 +3,17 @@ package com.raindrop.manga_service.service;
 import com.raindrop.manga_service.dto.request.GenreRequest;
 import com.raindrop.manga_service.dto.response.GenreResponse;
 import com.raindrop.manga_service.enums.ErrorCode;
+import com.raindrop.manga_service.event.GenreChangedEvent;
+import com.raindrop.manga_service.event.MangaChangedEvent;
 import com.raindrop.manga_service.exception.AppException;
 import com.raindrop.manga_service.mapper.GenreMapper;
 import com.raindrop.manga_service.repository.GenreRepository;
+import com.raindrop.manga_service.repository.MangaRepository;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -21,10 +25,13 @@ import java.util.List;
 public class GenreService {
     GenreRepository genreRepository;
     GenreMapper genreMapper;
+    MangaRepository mangaRepository;
+    ApplicationEventPublisher eventPublisher;
 
     public GenreResponse createGenre(GenreRequest request){
         var genre = genreMapper.toGenre(request);
         genreRepository.save(genre);
+        eventPublisher.publishEvent(new GenreChangedEvent(genre.getName()));
 
         return genreMapper.toGenreResponse(genre);
     }
@@ -46,7 +53,10 @@ public class GenreService {
         if (genre == null) {
             throw new AppException(ErrorCode.GENRE_NOT_FOUND);
         }
+        List<String> mangaIds = mangaRepository.findIdsByGenreId(genre.getId());
         genreRepository.delete(genre);
+        eventPublisher.publishEvent(new GenreChangedEvent(name));
+        mangaIds.forEach(mangaId -> eventPublisher.publishEvent(new MangaChangedEvent(mangaId)));
     }
 
     public GenreResponse updateGenre(String name, GenreRequest request){
@@ -56,6 +66,10 @@ public class GenreService {
         }
         genre.setName(request.getName());
         genreRepository.save(genre);
+        eventPublisher.publishEvent(new GenreChangedEvent(name));
+        // Tên thể loại được lưu trong manga_summary nên cần cập nhật các manga liên quan
+        mangaRepository.findIdsByGenreId(genre.getId())
+                .forEach(mangaId -> eventPublisher.publishEvent(new MangaChangedEvent(mangaId)));
 
         return genreMapper.toGenreResponse(genre);
     }
@@ -4,27 +4,29 @@ import com.raindrop.manga_service.dto.request.AdvancedSearchRequest;
 import com.raindrop.manga_service.dto.request.MangaRequest;
 import com.raindrop.manga_service.dto.response.MangaResponse;
 import com.raindrop.manga_service.dto.response.MangaSummaryResponse;
+import com.raindrop.manga_service.dto.response.SearchFacetsResponse;
 import com.raindrop.manga_service.entity.Genre;
 import com.raindrop.manga_service.entity.Manga;
 import com.raindrop.manga_service.enums.ErrorCode;
+import com.raindrop.manga_service.event.MangaChangedEvent;
 import com.raindrop.manga_service.exception.AppException;
 import com.raindrop.manga_service.mapper.MangaMapper;
-import com.raindrop.manga_service.repository.ChapterRepository;
 import com.raindrop.manga_service.repository.GenreRepository;
 import com.raindrop.manga_service.repository.MangaRepository;
 import com.raindrop.manga_service.repository.httpclient.UploadClient;
-import jakarta.persistence.criteria.Join;
-import jakarta.persistence.criteria.JoinType;
-import jakarta.persistence.criteria.Predicate;
+import com.raindrop.manga_service.search.MangaFilterIndex;
+import com.raindrop.manga_service.search.MangaSearchIndex;
 import jakarta.transaction.Transactional;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.domain.Sort;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
@@ -41,8 +43,13 @@ public class MangaService {
     MangaRepository mangaRepository;
     MangaMapper mangaMapper;
     GenreRepository genreRepository;
-    ChapterRepository chapterRepository;
     UploadClient uploadClient;
+    MangaSummaryService mangaSummaryService;
+    ApplicationEventPublisher eventPublisher;
+    MangaSearchIndex mangaSearchIndex;
+    MangaFilterIndex mangaFilterIndex;
+    CatalogCache catalogCache;
+    UniqueReaderCounter uniqueReaderCounter;
 
     @Transactional
     public MangaResponse createManga(MangaRequest request) {
@@ -93,6 +100,7 @@ public class MangaService {
         }
 
         manga = mangaRepository.save(manga);
+        eventPublisher.publishEvent(new MangaChangedEvent(manga.getId()));
         return mangaMapper.toMangaResponse(manga);
     }
 
@@ -105,9 +113,12 @@ public class MangaService {
     }
 
     public MangaResponse getMangaById(String id) {
-        Manga manga = mangaRepository.findById(id)
-                .orElseThrow(() -> new AppException(ErrorCode.MANGA_NOT_FOUND));
-        MangaResponse response = mangaMapper.toMangaResponse(manga);
+        MangaResponse response = catalogCache.getManga(id, () -> {
+            Manga manga = mangaRepository.findById(id)
+                    .orElseThrow(() -> new AppException(ErrorCode.MANGA_NOT_FOUND));
+            return mangaMapper.toMangaResponse(manga);
+        });
+        response.setUniqueReaders(uniqueReaderCounter.mangaReaders(id));
         return response;
     }
 
@@ -126,8 +137,7 @@ public class MangaService {
      */
     public Page<MangaResponse> getAllMangasPaginated(Pageable pageable) {
         log.info("Getting paginated mangas with page: {}, size: {}", pageable.getPageNumber(), pageable.getPageSize());
-        Page<Manga> mangasPage = mangaRepository.findAll(pageable);
-        Page<MangaResponse> mangaResponsePage = mangasPage.map(mangaMapper::toMangaResponse);
+        Page<MangaResponse> mangaResponsePage = mangaSummaryService.findMangas(pageable);
         log.info("Retrieved {} mangas out of {} total", mangaResponsePage.getNumberOfElements(), mangaResponsePage.getTotalElements());
         return mangaResponsePage;
     }
@@ -139,21 +149,8 @@ public class MangaService {
      */
     public Page<MangaSummaryResponse> getMangaSummariesPaginated(Pageable pageable) {
         log.info("Getting paginated manga summaries with page: {}, size: {}", pageable.getPageNumber(), pageable.getPageSize());
-        Page<Manga> mangasPage = mangaRepository.findAll(pageable);
-
-        // Chuyển đổi Manga sang MangaSummaryResponse và thêm lastChapterNumber
-        Page<MangaSummaryResponse> mangaSummaryResponsePage = mangasPage.map(manga -> {
-            MangaSummaryResponse response = mangaMapper.toMangaSummaryResponse(manga);
-
-            // Nếu có lastChapterId, tìm chapter tương ứng để lấy chapterNumber
-            if (manga.getLastChapterId() != null) {
-                chapterRepository.findById(manga.getLastChapterId()).ifPresent(chapter -> {
-                    response.setLastChapterNumber(chapter.getChapterNumber());
-                });
-            }
-
-            return response;
-        });
+        // Đọc từ bảng manga_summary, lastChapterNumber đã được lưu sẵn
+        Page<MangaSummaryResponse> mangaSummaryResponsePage = mangaSummaryService.findSummaries(pageable);
 
         log.info("Retrieved {} manga summaries out of {} total", mangaSummaryResponsePage.getNumberOfElements(), mangaSummaryResponsePage.getTotalElements());
         return mangaSummaryResponsePage;
@@ -163,6 +160,8 @@ public class MangaService {
         var manga = mangaRepository.findById(id)
                 .orElseThrow(() -> new AppException(ErrorCode.MANGA_NOT_FOUND));
         mangaRepository.delete(manga);
+        catalogCache.evictManga(id);
+        eventPublisher.publishEvent(new MangaChangedEvent(id));
     }
 
     public MangaResponse updateManga(String id, MangaRequest request) {
@@ -214,9 +213,21 @@ public class MangaService {
             manga.getGenres().addAll(newGenres); // Thêm các genres mới
         }
         mangaRepository.save(manga);
+        catalogCache.evictManga(id);
+        eventPublisher.publishEvent(new MangaChangedEvent(id));
         return mangaMapper.toMangaResponse(manga);
     }
 
+    /**
+     * Đếm số manga theo thể loại, tình trạng và năm cho điều kiện tìm kiếm nâng cao
+     * @param searchRequest Yêu cầu tìm kiếm nâng cao
+     * @return Số đếm theo từng nhóm
+     */
+    public SearchFacetsResponse searchFacets(AdvancedSearchRequest searchRequest) {
+        List<String> textMatches = mangaSearchIndex.match(searchRequest.getTitle(), searchRequest.getAuthor());
+        return mangaFilterIndex.facets(searchRequest, textMatches);
+    }
+
     /**
      * Tìm kiếm nâng cao manga
      * @param searchRequest Yêu cầu tìm kiếm nâng cao
@@ -226,49 +237,37 @@ public class MangaService {
     public Page<MangaResponse> advancedSearch(AdvancedSearchRequest searchRequest, Pageable pageable) {
         log.info("Advanced search with request: {}", searchRequest);
 
-        // Tạo Specification để xây dựng truy vấn động
-        Specification<Manga> spec = (root, query, criteriaBuilder) -> {
-            List<Predicate> predicates = new ArrayList<>();
-
-            // Tìm kiếm theo tiêu đề
-            if (searchRequest.getTitle() != null && !searchRequest.getTitle().isEmpty()) {
-                predicates.add(criteriaBuilder.like(
-                        criteriaBuilder.lower(root.get("title")),
-                        "%" + searchRequest.getTitle().toLowerCase() + "%"));
-            }
-
-            // Tìm kiếm theo tác giả
-            if (searchRequest.getAuthor() != null && !searchRequest.getAuthor().isEmpty()) {
-                predicates.add(criteriaBuilder.like(
-                        criteriaBuilder.lower(root.get("author")),
-                        "%" + searchRequest.getAuthor().toLowerCase() + "%"));
-            }
-
-            // Tìm kiếm theo thể loại
-            if (searchRequest.getGenres() != null && !searchRequest.getGenres().isEmpty()) {
-                Join<Object, Object> genresJoin = root.join("genres", JoinType.INNER);
-                predicates.add(genresJoin.get("name").in(searchRequest.getGenres()));
-            }
-
-            // Tìm kiếm theo năm phát hành
-            if (searchRequest.getYearOfRelease() != null) {
-                predicates.add(criteriaBuilder.equal(root.get("yearOfRelease"), searchRequest.getYearOfRelease()));
-            }
-
-            // Tìm kiếm theo tình trạng
-            if (searchRequest.getStatus() != null) {
-                predicates.add(criteriaBuilder.equal(root.get("status"), searchRequest.getStatus()));
-            }
-
-            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
-        };
-
-        // Thực hiện tìm kiếm với Specification và Pageable
-        Page<Manga> mangaPage = mangaRepository.findAll(spec, pageable);
-        log.info("Found {} mangas matching the search criteria", mangaPage.getTotalElements());
+        // Tiêu đề và tác giả được tìm trong chỉ mục văn bản, kết quả đã xếp theo độ liên quan
+        List<String> textMatches = mangaSearchIndex.match(searchRequest.getTitle(), searchRequest.getAuthor());
+        // Thể loại, tình trạng và năm được lọc trên bitmap, giữ nguyên thứ tự của textMatches
+        List<String> ids = mangaFilterIndex.filter(searchRequest, textMatches);
+        if (ids == null) {
+            return mangaRepository.findAll(pageable).map(mangaMapper::toMangaResponse);
+        }
+        log.info("Found {} mangas matching the search criteria", ids.size());
+        if (ids.isEmpty()) {
+            return Page.empty(pageable);
+        }
 
-        // Chuyển đổi kết quả sang DTO
-        return mangaPage.map(mangaMapper::toMangaResponse);
+        // Client không chỉ định sắp xếp: phân trang ngay trên danh sách id, chỉ đọc các dòng của trang
+        List<String> pageIds;
+        if (pageable.getSort().isUnsorted()) {
+            int from = (int) Math.min(pageable.getOffset(), ids.size());
+            int to = Math.min(from + pageable.getPageSize(), ids.size());
+            pageIds = ids.subList(from, to);
+        } else {
+            // Có sắp xếp: lấy id của trang theo các cột của manga_summary, tổng là số id đã lọc
+            pageIds = mangaSummaryService.sortedIds(new HashSet<>(ids), pageable.getSort().and(Sort.by("id")),
+                    pageable.getOffset(), pageable.getPageSize());
+        }
+        Map<String, Manga> mangas = mangaRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(Manga::getId, manga -> manga));
+        List<MangaResponse> content = pageIds.stream()
+                .map(mangas::get)
+                .filter(Objects::nonNull)
+                .map(mangaMapper::toMangaResponse)
+                .toList();
+        return new PageImpl<>(content, pageable, ids.size());
     }
 
 }
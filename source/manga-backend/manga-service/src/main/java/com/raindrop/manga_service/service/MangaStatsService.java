@@ -1,75 +1,56 @@
 package com.raindrop.manga_service.service;
 
-import com.raindrop.manga_service.repository.ChapterRepository;
+import com.raindrop.manga_service.event.MangaChangedEvent;
 import com.raindrop.manga_service.repository.MangaRepository;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
+/**
+ * Tổng lượt xem và comment của manga được duy trì bằng phần chênh lệch (+1/-1) ghi cùng
+ * transaction với chapter. Việc tính lại từ tổng các chapter chỉ còn là bước đối chiếu
+ * định kỳ để phát hiện và sửa độ lệch.
+ */
 @Service
 @RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 @Slf4j
 public class MangaStatsService {
-    ChapterRepository chapterRepository;
     MangaRepository mangaRepository;
-    
+    ApplicationEventPublisher eventPublisher;
+
     /**
-     * Cập nhật tổng số lượt xem của manga
-     * @param mangaId ID của manga
+     * Đối chiếu một nhóm manga với tổng của các chapter bằng một câu GROUP BY và sửa các manga bị lệch.
+     * Phần sửa được cộng dưới dạng chênh lệch tính trên cùng một snapshot, nên các lượt xem
+     * được ghi đồng thời trong lúc đối chiếu không bị ghi đè.
+     * @param mangaIds Danh sách ID manga
+     * @return Độ lệch đã sửa của các manga bị lệch
      */
     @Transactional
-    public void updateMangaTotalViews(String mangaId) {
-        log.info("Updating total views for manga: {}", mangaId);
-        
-        try {
-            Integer totalViews = chapterRepository.sumViewsByMangaId(mangaId);
-            
-            // Nếu không có chapter nào, đặt tổng số lượt xem là 0
-            if (totalViews == null) {
-                totalViews = 0;
-            }
-            
-            int updated = mangaRepository.updateTotalViews(mangaId, totalViews);
-            
-            if (updated > 0) {
-                log.info("Updated total views for manga {}: {}", mangaId, totalViews);
-            } else {
-                log.error("Failed to update total views for manga: {}", mangaId);
-            }
-        } catch (Exception e) {
-            log.error("Error updating total views for manga {}: {}", mangaId, e.getMessage());
+    public List<StatsDrift> reconcile(List<String> mangaIds) {
+        List<StatsDrift> drifts = mangaRepository.findStatsDrift(mangaIds).stream()
+                .map(row -> new StatsDrift(row.getId(),
+                        Math.toIntExact(row.getChapterViews() - row.getStoredViews()),
+                        Math.toIntExact(row.getChapterComments() - row.getStoredComments())))
+                .toList();
+        for (StatsDrift drift : drifts) {
+            mangaRepository.adjustTotals(drift.mangaId(), drift.views(), drift.comments());
+            eventPublisher.publishEvent(new MangaChangedEvent(drift.mangaId()));
+            log.warn("Corrected stats drift for manga {}: views {}, comments {}",
+                    drift.mangaId(), drift.views(), drift.comments());
         }
+        return drifts;
     }
-    
+
     /**
-     * Cập nhật tổng số comment của manga
-     * @param mangaId ID của manga
+     * Độ lệch giữa tổng thực tế (theo chapter) và tổng đang lưu của manga
      */
-    @Transactional
-    public void updateMangaTotalComments(String mangaId) {
-        log.info("Updating total comments for manga: {}", mangaId);
-        
-        try {
-            Integer totalComments = chapterRepository.sumCommentsByMangaId(mangaId);
-            
-            // Nếu không có chapter nào, đặt tổng số comment là 0
-            if (totalComments == null) {
-                totalComments = 0;
-            }
-            
-            int updated = mangaRepository.updateTotalComments(mangaId, totalComments);
-            
-            if (updated > 0) {
-                log.info("Updated total comments for manga {}: {}", mangaId, totalComments);
-            } else {
-                log.error("Failed to update total comments for manga: {}", mangaId);
-            }
-        } catch (Exception e) {
-            log.error("Error updating total comments for manga {}: {}", mangaId, e.getMessage());
-        }
+    public record StatsDrift(String mangaId, int views, int comments) {
     }
 }
@@ -0,0 +1,408 @@
+package com.raindrop.manga_service.service;
+
+import com.raindrop.manga_service.dto.request.AdvancedSearchRequest;
+import com.raindrop.manga_service.dto.response.CursorPageResponse;
+import com.raindrop.manga_service.dto.response.MangaResponse;
+import com.raindrop.manga_service.dto.response.MangaSummaryResponse;
+import com.raindrop.manga_service.dto.response.TrendingMangaResponse;
+import com.raindrop.manga_service.entity.Manga;
+import com.raindrop.manga_service.entity.MangaSummary;
+import com.raindrop.manga_service.enums.ErrorCode;
+import com.raindrop.manga_service.enums.MangaSortKey;
+import com.raindrop.manga_service.enums.TrendingWindow;
+import com.raindrop.manga_service.event.MangaChangedEvent;
+import com.raindrop.manga_service.exception.AppException;
+import com.raindrop.manga_service.mapper.MangaMapper;
+import com.raindrop.manga_service.repository.ChapterRepository;
+import com.raindrop.manga_service.repository.MangaRepository;
+import com.raindrop.manga_service.repository.MangaSummaryRepository;
+import com.raindrop.manga_service.search.MangaFilterIndex;
+import com.raindrop.manga_service.search.MangaSearchIndex;
+import com.raindrop.manga_service.search.MangaTrendingIndex;
+import com.raindrop.manga_service.util.KeysetCursor;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Duy trì bảng manga_summary và phục vụ các trang danh sách từ bảng này,
+ * mỗi trang chỉ cần một lần quét theo index (cộng câu đếm tổng).
+ */
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+@Slf4j
+public class MangaSummaryService {
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final long TOTAL_REFRESH_MILLIS = 60_000;
+    // Tập id lọc lớn hơn mức này không được đưa vào IN mà được lọc khi duyệt index
+    private static final int MAX_IN_IDS = 500;
+    private static final int ID_SCAN_CHUNK = 1000;
+    private static final int MAX_ID_SCAN_CHUNK = 64_000;
+
+    MangaSummaryRepository mangaSummaryRepository;
+    MangaRepository mangaRepository;
+    ChapterRepository chapterRepository;
+    MangaMapper mangaMapper;
+    MangaSearchIndex mangaSearchIndex;
+    MangaFilterIndex mangaFilterIndex;
+    MangaTrendingIndex mangaTrendingIndex;
+
+    // Tổng số manga được đếm lại tối đa mỗi phút một lần
+    @NonFinal
+    volatile long cachedTotal = -1;
+    @NonFinal
+    volatile long cachedTotalAt;
+
+    public Page<MangaSummaryResponse> findSummaries(Pageable pageable) {
+        return mangaSummaryRepository.findAll(pageable).map(mangaMapper::toMangaSummaryResponse);
+    }
+
+    public Page<MangaResponse> findMangas(Pageable pageable) {
+        return mangaSummaryRepository.findAll(pageable).map(mangaMapper::toMangaResponse);
+    }
+
+    /**
+     * Lấy danh sách tóm tắt theo cursor. Trang sâu có chi phí như trang đầu vì
+     * điều kiện (thuộc tính, id) nhỏ hơn cursor được tìm trực tiếp trên index.
+     * @param sortKey Thứ tự sắp xếp
+     * @param cursor Token của trang trước, null cho trang đầu
+     * @param size Số phần tử mỗi trang
+     * @param withTotal Có trả về tổng số ước lượng hay không
+     */
+    public CursorPageResponse<MangaSummaryResponse> scrollSummaries(MangaSortKey sortKey, String cursor, int size, boolean withTotal) {
+        CursorPageResponse<MangaSummaryResponse> page = scroll(null, sortKey, cursor, size, mangaMapper::toMangaSummaryResponse);
+        if (withTotal) {
+            page.setEstimatedTotal(estimatedTotal());
+        }
+        return page;
+    }
+
+    public CursorPageResponse<MangaResponse> scrollMangas(MangaSortKey sortKey, String cursor, int size, boolean withTotal) {
+        CursorPageResponse<MangaResponse> page = scroll(null, sortKey, cursor, size, mangaMapper::toMangaResponse);
+        if (withTotal) {
+            page.setEstimatedTotal(estimatedTotal());
+        }
+        return page;
+    }
+
+    /**
+     * Tìm kiếm toàn văn theo tiêu đề, tác giả và mô tả, xếp theo độ liên quan
+     * @param query Câu truy vấn, có dấu hoặc không dấu, từ cuối có thể gõ dở
+     * @param pageable Thông tin phân trang (sort bị bỏ qua)
+     */
+    public Page<MangaSummaryResponse> searchSummaries(String query, Pageable pageable) {
+        // Lấy toàn bộ kết quả để tổng số chính xác, chỉ các dòng của trang được đọc từ database
+        List<String> ids = mangaSearchIndex.search(query, EnumSet.allOf(MangaSearchIndex.Field.class), Integer.MAX_VALUE);
+        int from = (int) Math.min(pageable.getOffset(), ids.size());
+        int to = Math.min(from + pageable.getPageSize(), ids.size());
+        List<String> pageIds = ids.subList(from, to);
+
+        Map<String, MangaSummary> summaries = new HashMap<>();
+        mangaSummaryRepository.findAllById(pageIds).forEach(summary -> summaries.put(summary.getId(), summary));
+        List<MangaSummaryResponse> content = pageIds.stream()
+                .map(summaries::get)
+                .filter(Objects::nonNull)
+                .map(mangaMapper::toMangaSummaryResponse)
+                .toList();
+        return new PageImpl<>(content, pageable, ids.size());
+    }
+
+    /**
+     * Tìm kiếm nâng cao theo cursor, sắp xếp theo searchRequest.orderBy (mặc định LATEST)
+     */
+    public CursorPageResponse<MangaResponse> scrollSearch(AdvancedSearchRequest searchRequest, String cursor, int size) {
+        return scroll(matches(searchRequest), MangaSortKey.from(searchRequest.getOrderBy()), cursor, size,
+                mangaMapper::toMangaResponse);
+    }
+
+    /**
+     * Lấy một đoạn id theo thứ tự sort trong tập id đã lọc, không đếm tổng (tổng là ids.size()).
+     * Tập nhỏ được sắp xếp trong database bằng IN; tập lớn thì duyệt cột id theo thứ tự sort
+     * (chỉ đọc index khi sort theo khoá có index ghép) và giữ lại các id thuộc tập, dừng ngay khi đủ.
+     * @param ids Tập id đã lọc
+     * @param sort Thứ tự sắp xếp trên các cột của manga_summary
+     * @param offset Số id bỏ qua
+     * @param limit Số id cần lấy
+     */
+    public List<String> sortedIds(Set<String> ids, Sort sort, long offset, int limit) {
+        return sortedIds(ids, all(), sort, offset, limit);
+    }
+
+    private List<String> sortedIds(Set<String> ids, Specification<MangaSummary> spec, Sort sort, long offset, int limit) {
+        if (ids.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        if (ids.size() <= MAX_IN_IDS) {
+            return mangaSummaryRepository.findIds(spec.and(idIn(ids)), sort, offset, limit);
+        }
+        List<String> result = new ArrayList<>(limit);
+        long skipped = 0;
+        long position = 0;
+        // Mỗi lần đọc gấp đôi lần trước nên tổng số id đã đọc không quá hai lần vị trí cần tới
+        for (int chunk = ID_SCAN_CHUNK; ; position += chunk, chunk = Math.min(chunk * 2, MAX_ID_SCAN_CHUNK)) {
+            List<String> scanned = mangaSummaryRepository.findIds(spec, sort, position, chunk);
+            for (String id : scanned) {
+                if (!ids.contains(id)) {
+                    continue;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    result.add(id);
+                    if (result.size() == limit) {
+                        return result;
+                    }
+                }
+            }
+            if (scanned.size() < chunk) {
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Đọc các summary theo đúng thứ tự của danh sách id
+     */
+    private List<MangaSummary> findAllInOrder(List<String> ids) {
+        Map<String, MangaSummary> summaries = new HashMap<>();
+        mangaSummaryRepository.findAllById(ids).forEach(summary -> summaries.put(summary.getId(), summary));
+        return ids.stream().map(summaries::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Manga thịnh hành trong khoảng thời gian, thứ hạng lấy từ bộ nhớ, chỉ nạp summary của top-k
+     * @param window "24h" hoặc "7d"
+     * @param limit Số manga cần lấy (tối đa MangaTrendingIndex.MAX_TRENDING)
+     */
+    public List<TrendingMangaResponse> findTrending(String window, int limit) {
+        List<MangaTrendingIndex.Ranked> ranked = mangaTrendingIndex.top(TrendingWindow.from(window), limit);
+        Map<String, MangaSummary> summaries = new HashMap<>();
+        mangaSummaryRepository.findAllById(ranked.stream().map(MangaTrendingIndex.Ranked::mangaId).toList())
+                .forEach(summary -> summaries.put(summary.getId(), summary));
+        // Manga đã bị xoá sau lần tính bảng xếp hạng gần nhất thì bỏ qua
+        return ranked.stream()
+                .filter(entry -> summaries.containsKey(entry.mangaId()))
+                .map(entry -> TrendingMangaResponse.builder()
+                        .manga(mangaMapper.toMangaSummaryResponse(summaries.get(entry.mangaId())))
+                        .views(entry.views())
+                        .score(entry.score())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * @param ids Tập id đã lọc, null nếu không lọc
+     */
+    private <T> CursorPageResponse<T> scroll(Set<String> ids, MangaSortKey sortKey, String cursor,
+                                             int size, Function<MangaSummary, T> mapper) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        KeysetCursor position = cursor == null || cursor.isBlank() ? null : KeysetCursor.decode(cursor, sortKey.name());
+
+        // Lấy thêm một phần tử để biết còn trang sau hay không
+        List<MangaSummary> rows = new ArrayList<>(limit + 1);
+        if (position == null || position.value() != null) {
+            rows.addAll(findPage(ids, after(sortKey, position),
+                    Sort.by(Sort.Direction.DESC, sortKey.getAttribute(), "id"), limit + 1));
+        }
+        // Phần đuôi null chỉ được truy vấn khi các giá trị khác null đã hết
+        if (sortKey.isNullable() && rows.size() <= limit) {
+            int remaining = limit + 1 - rows.size();
+            rows.addAll(findPage(ids, afterInNullTail(sortKey, position), Sort.by(Sort.Direction.DESC, "id"), remaining));
+        }
+        boolean hasNext = rows.size() > limit;
+        List<MangaSummary> content = hasNext ? rows.subList(0, limit) : rows;
+
+        String nextCursor = null;
+        if (hasNext) {
+            MangaSummary last = content.get(content.size() - 1);
+            Object value = sortKey.getExtractor().apply(last);
+            nextCursor = new KeysetCursor(sortKey.name(), value == null ? null : value.toString(), last.getId()).encode();
+        }
+        return CursorPageResponse.<T>builder()
+                .content(content.stream().map(mapper).toList())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private List<MangaSummary> findPage(Set<String> ids, Specification<MangaSummary> spec, Sort sort, int limit) {
+        if (ids == null) {
+            return mangaSummaryRepository.findBy(spec, query -> query.sortBy(sort).limit(limit).all());
+        }
+        return findAllInOrder(sortedIds(ids, spec, sort, 0, limit));
+    }
+
+    /**
+     * Điều kiện "đứng sau cursor" trong phần giá trị khác null, theo thứ tự (thuộc tính, id)
+     * giảm dần. Chỉ có so sánh trên cặp cột của index ghép nên MySQL duyệt một khoảng index.
+     * @param cursor Vị trí trang trước (giá trị khác null), null cho trang đầu
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Specification<MangaSummary> after(MangaSortKey sortKey, KeysetCursor cursor) {
+        Comparable value = cursor == null ? null : parseCursorValue(sortKey, cursor);
+        return (root, query, cb) -> {
+            Path<Comparable> attribute = root.get(sortKey.getAttribute());
+            if (value == null) {
+                return sortKey.isNullable() ? cb.isNotNull(attribute) : cb.conjunction();
+            }
+            return cb.or(
+                    cb.lessThan(attribute, value),
+                    cb.and(cb.equal(attribute, value), cb.lessThan(root.get("id"), cursor.id())));
+        };
+    }
+
+    /**
+     * Điều kiện trong phần đuôi null: cursor còn ở phần khác null thì lấy từ đầu phần đuôi,
+     * cursor đã ở phần đuôi thì lấy các id nhỏ hơn
+     */
+    private Specification<MangaSummary> afterInNullTail(MangaSortKey sortKey, KeysetCursor cursor) {
+        return (root, query, cb) -> {
+            Predicate isNull = cb.isNull(root.get(sortKey.getAttribute()));
+            if (cursor == null || cursor.value() != null) {
+                return isNull;
+            }
+            return cb.and(isNull, cb.lessThan(root.get("id"), cursor.id()));
+        };
+    }
+
+    @SuppressWarnings("rawtypes")
+    private Comparable parseCursorValue(MangaSortKey sortKey, KeysetCursor cursor) {
+        if (cursor.value() == null) {
+            return null;
+        }
+        try {
+            return sortKey.getParser().apply(cursor.value());
+        } catch (RuntimeException e) {
+            throw new AppException(ErrorCode.INVALID_CURSOR);
+        }
+    }
+
+    private Specification<MangaSummary> all() {
+        return (root, query, cb) -> cb.conjunction();
+    }
+
+    /**
+     * @return Tập id thoả điều kiện tìm kiếm, null nếu request không có điều kiện nào
+     */
+    private Set<String> matches(AdvancedSearchRequest searchRequest) {
+        List<String> textMatches = mangaSearchIndex.match(searchRequest.getTitle(), searchRequest.getAuthor());
+        // Thể loại, tình trạng và năm được lọc trên bitmap
+        List<String> ids = mangaFilterIndex.filter(searchRequest, textMatches);
+        return ids == null ? null : new HashSet<>(ids);
+    }
+
+    private Specification<MangaSummary> idIn(Collection<String> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
+    private long estimatedTotal() {
+        long now = System.currentTimeMillis();
+        if (cachedTotal < 0 || now - cachedTotalAt > TOTAL_REFRESH_MILLIS) {
+            cachedTotal = mangaSummaryRepository.count();
+            cachedTotalAt = now;
+        }
+        return cachedTotal;
+    }
+
+    /**
+     * Cập nhật summary sau khi transaction ghi đã commit. Sự kiện phát ra ngoài
+     * transaction (ví dụ từ Kafka consumer không có transaction) được xử lý ngay.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onMangaChanged(MangaChangedEvent event) {
+        try {
+            refresh(event.mangaId());
+        } catch (Exception e) {
+            log.error("Error refreshing summary for manga {}: {}", event.mangaId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Dựng lại summary của một manga từ bảng gốc, xoá summary nếu manga không còn.
+     * Các index trong bộ nhớ chỉ được cập nhật sau khi transaction commit để không
+     * lệch với database khi transaction bị rollback.
+     * @param mangaId ID của manga
+     */
+    @Transactional
+    public void refresh(String mangaId) {
+        Optional<Manga> manga = mangaRepository.findById(mangaId);
+        if (manga.isEmpty()) {
+            mangaSummaryRepository.deleteById(mangaId);
+            mangaTrendingIndex.deleteHistory(mangaId);
+            afterCommit(() -> {
+                mangaFilterIndex.remove(mangaId);
+                mangaTrendingIndex.remove(mangaId);
+            });
+            log.info("Removed summary for manga {}", mangaId);
+            return;
+        }
+        MangaSummary summary = mangaSummaryRepository.save(toSummary(manga.get()));
+        afterCommit(() -> mangaFilterIndex.index(summary));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Dựng lại toàn bộ bảng summary
+     */
+    @Transactional
+    public void rebuildAll() {
+        List<Manga> mangas = mangaRepository.findAll();
+        mangaSummaryRepository.deleteAllInBatch();
+        mangaFilterIndex.rebuild(mangaSummaryRepository.saveAll(mangas.stream().map(this::toSummary).toList()));
+        log.info("Rebuilt {} manga summaries", mangas.size());
+    }
+
+    /**
+     * Lần đầu chạy (hoặc khi bảng bị lệch số lượng) thì dựng lại summary từ bảng gốc
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildIfOutOfSync() {
+        if (mangaSummaryRepository.count() != mangaRepository.count()) {
+            log.info("Manga summary table is out of sync, rebuilding");
+            rebuildAll();
+        }
+    }
+
+    private MangaSummary toSummary(Manga manga) {
+        MangaSummary summary = mangaMapper.toMangaSummary(manga);
+        if (manga.getLastChapterId() != null) {
+            chapterRepository.findChapterNumberById(manga.getLastChapterId())
+                    .ifPresent(summary::setLastChapterNumber);
+        }
+        return summary;
+    }
+}
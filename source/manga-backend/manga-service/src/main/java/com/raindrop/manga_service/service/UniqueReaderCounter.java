@@ -0,0 +1,163 @@
+package com.raindrop.manga_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.raindrop.manga_service.entity.ReaderSketch;
+import com.raindrop.manga_service.repository.ReaderSketchRepository;
+import com.raindrop.manga_service.util.HyperLogLog;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ước lượng số người đọc khác nhau của mỗi chapter và mỗi manga bằng HyperLogLog, theo user id
+ * hoặc dấu vân tay đã băm của client. Sketch nằm trong bộ nhớ và định kỳ được gộp (max từng
+ * register) với bản đã lưu trong database, nên nhiều instance cùng ghi không làm mất dữ liệu.
+ * Đồng thời quyết định một lượt xem có được tính hay không: cùng người đọc mở lại chapter
+ * trong khoảng app.readers.view-window chỉ được tính một lần.
+ */
+@Component
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+@Slf4j
+public class UniqueReaderCounter {
+    // 1024 register (1KB, sai số ~3%) cho chapter, 4096 register (4KB, sai số ~1.6%) cho manga
+    private static final int CHAPTER_PRECISION = 10;
+    private static final int MANGA_PRECISION = 12;
+
+    ReaderSketchRepository readerSketchRepository;
+    TransactionTemplate transactionTemplate;
+    Cache<String, HyperLogLog> sketches;
+    // Sketch có thay đổi chưa được lưu; giữ tham chiếu để sketch không bị mất khi bị đẩy khỏi cache
+    Map<String, HyperLogLog> dirty = new ConcurrentHashMap<>();
+    // Băm của (chapter, người đọc) đã được tính lượt xem gần đây
+    Cache<Long, Boolean> recentViews;
+
+    public UniqueReaderCounter(ReaderSketchRepository readerSketchRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.readers.max-sketches:20000}") long maxSketches,
+                               @Value("${app.readers.view-window:30m}") Duration viewWindow,
+                               @Value("${app.readers.max-recent-views:500000}") long maxRecentViews) {
+        this.readerSketchRepository = readerSketchRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sketches = Caffeine.newBuilder()
+                .maximumSize(maxSketches)
+                .build();
+        this.recentViews = Caffeine.newBuilder()
+                .maximumSize(maxRecentViews)
+                .expireAfterWrite(viewWindow)
+                .build();
+    }
+
+    /**
+     * Ghi nhận người đọc mở chapter
+     * @param chapterId ID của chapter
+     * @param mangaId ID của manga chứa chapter
+     * @param readerHash Giá trị băm của người đọc
+     * @return true nếu lượt mở này được tính là một lượt xem mới
+     */
+    public boolean record(String chapterId, String mangaId, long readerHash) {
+        add(chapterId, CHAPTER_PRECISION, readerHash);
+        add(mangaId, MANGA_PRECISION, readerHash);
+        long viewKey = HyperLogLog.mix(HyperLogLog.hash(chapterId) ^ readerHash);
+        return recentViews.asMap().putIfAbsent(viewKey, Boolean.TRUE) == null;
+    }
+
+    public long chapterReaders(String chapterId) {
+        return sketch(chapterId, CHAPTER_PRECISION).estimate();
+    }
+
+    public long mangaReaders(String mangaId) {
+        return sketch(mangaId, MANGA_PRECISION).estimate();
+    }
+
+    /**
+     * Băm người đọc: user id khi đã đăng nhập, ngược lại là dấu vân tay của client
+     * (không lưu lại giá trị gốc)
+     */
+    public static long readerHash(String userId, String clientFingerprint) {
+        return userId != null ? HyperLogLog.hash("u:" + userId) : HyperLogLog.hash("c:" + clientFingerprint);
+    }
+
+    private void add(String id, int precision, long readerHash) {
+        HyperLogLog sketch = sketch(id, precision);
+        // Chỉ đánh dấu cần lưu sau khi register đã đổi, để flush đang chạy không bỏ sót thay đổi này
+        if (sketch.add(readerHash)) {
+            dirty.put(id, sketch);
+        }
+    }
+
+    private HyperLogLog sketch(String id, int precision) {
+        HyperLogLog pending = dirty.get(id);
+        if (pending != null) {
+            return pending;
+        }
+        return sketches.get(id, key -> readerSketchRepository.findById(key)
+                .map(stored -> HyperLogLog.fromBytes(stored.getRegisters()))
+                .orElseGet(() -> new HyperLogLog(precision)));
+    }
+
+    @Scheduled(fixedDelayString = "${app.readers.flush-interval-ms:60000}")
+    public void flush() {
+        // Bỏ khỏi dirty trước khi chụp register: thay đổi đến sau sẽ đánh dấu lại cho lần sau
+        Map<String, HyperLogLog> flushing = new HashMap<>();
+        Map<String, byte[]> snapshots = new HashMap<>();
+        dirty.forEach((id, sketch) -> {
+            if (dirty.remove(id, sketch)) {
+                flushing.put(id, sketch);
+                snapshots.put(id, sketch.toBytes());
+            }
+        });
+        if (snapshots.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Map<String, ReaderSketch> stored = new HashMap<>();
+                readerSketchRepository.findAllByIdForUpdate(snapshots.keySet()).forEach(row -> stored.put(row.getId(), row));
+                LocalDateTime now = LocalDateTime.now();
+                List<ReaderSketch> rows = new ArrayList<>(snapshots.size());
+                snapshots.forEach((id, registers) -> {
+                    HyperLogLog merged = HyperLogLog.fromBytes(registers);
+                    ReaderSketch row = stored.get(id);
+                    if (row == null) {
+                        row = ReaderSketch.builder().id(id).build();
+                    } else {
+                        // Gộp phần do instance khác ghi vào cả bản lưu lẫn bản trong bộ nhớ
+                        merged.merge(row.getRegisters());
+                        flushing.get(id).merge(row.getRegisters());
+                    }
+                    row.setRegisters(merged.toBytes());
+                    row.setUniqueReaders(merged.estimate());
+                    row.setUpdatedAt(now);
+                    rows.add(row);
+                });
+                readerSketchRepository.saveAll(rows);
+            });
+        } catch (Exception e) {
+            log.error("Error saving {} reader sketches: {}", snapshots.size(), e.getMessage());
+            flushing.forEach(dirty::putIfAbsent);
+            return;
+        }
+        log.debug("Saved {} reader sketches", snapshots.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,168 @@
+package com.raindrop.manga_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.raindrop.manga_service.enums.ErrorCode;
+import com.raindrop.manga_service.exception.AppException;
+import com.raindrop.manga_service.repository.ChapterRepository;
+import com.raindrop.manga_service.search.MangaTrendingIndex;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Đếm lượt xem chapter trong bộ nhớ và ghi xuống database theo lô (write-behind).
+ * Mỗi lượt xem chỉ là một phép cộng vào LongAdder của chapter (phân tán theo cell nên
+ * nhiều luồng cùng xem một chapter không tranh nhau), định kỳ phần chênh lệch được cộng
+ * vào Chapter.views, Manga.views và manga_summary.views bằng batch UPDATE trong một transaction.
+ * Không phát MangaChangedEvent cho lượt xem, tránh việc mỗi lần flush xoá cache và dựng lại
+ * summary, index của từng manga; chỉ chapter vừa được ghi lượt xem bị xoá khỏi CatalogCache
+ * để số lượt xem trả về (cache + phần chưa ghi) không giảm sau mỗi lần flush.
+ */
+@Component
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+@Slf4j
+public class ViewCounter {
+    private static final String UPDATE_CHAPTER_VIEWS = "UPDATE chapter SET views = views + ? WHERE id = ?";
+    private static final String UPDATE_MANGA_VIEWS = "UPDATE manga SET views = views + ? WHERE id = ?";
+    private static final String UPDATE_SUMMARY_VIEWS = "UPDATE manga_summary SET views = views + ? WHERE id = ?";
+
+    ChapterRepository chapterRepository;
+    JdbcTemplate jdbcTemplate;
+    TransactionTemplate transactionTemplate;
+    UniqueReaderCounter uniqueReaderCounter;
+    MangaTrendingIndex mangaTrendingIndex;
+    CatalogCache catalogCache;
+    Map<String, LongAdder> pending = new ConcurrentHashMap<>();
+    // Phần đang được ghi trong lần flush hiện tại, vẫn tính vào pendingViews tới khi cache được xoá
+    @NonFinal
+    volatile Map<String, Long> flushing = Map.of();
+    // Chapter không đổi manga nên ánh xạ chapter -> manga được cache, đồng thời dùng để kiểm tra tồn tại
+    Cache<String, String> chapterMangaIds;
+
+    public ViewCounter(ChapterRepository chapterRepository,
+                       JdbcTemplate jdbcTemplate,
+                       PlatformTransactionManager transactionManager,
+                       UniqueReaderCounter uniqueReaderCounter,
+                       MangaTrendingIndex mangaTrendingIndex,
+                       CatalogCache catalogCache,
+                       @Value("${app.views.max-tracked-chapters:100000}") long maxTrackedChapters) {
+        this.chapterRepository = chapterRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.uniqueReaderCounter = uniqueReaderCounter;
+        this.mangaTrendingIndex = mangaTrendingIndex;
+        this.catalogCache = catalogCache;
+        this.chapterMangaIds = Caffeine.newBuilder()
+                .maximumSize(maxTrackedChapters)
+                .build();
+    }
+
+    /**
+     * Ghi nhận một lượt mở chapter, chưa ghi xuống database. Lượt xem chỉ được cộng khi
+     * UniqueReaderCounter coi đây là lượt xem mới của người đọc (không phải tải lại trang).
+     * @param chapterId ID của chapter
+     * @param readerHash Giá trị băm của người đọc
+     * @return true nếu lượt xem được tính
+     */
+    public boolean record(String chapterId, long readerHash) {
+        String mangaId = chapterMangaIds.get(chapterId, id -> chapterRepository.findMangaIdById(id).orElse(null));
+        if (mangaId == null) {
+            throw new AppException(ErrorCode.CHAPTER_NOT_FOUND);
+        }
+        if (!uniqueReaderCounter.record(chapterId, mangaId, readerHash)) {
+            return false;
+        }
+        pending.computeIfAbsent(chapterId, id -> new LongAdder()).increment();
+        return true;
+    }
+
+    /**
+     * @return Số lượt xem của chapter chưa có trong bản chapter đang được cache
+     */
+    public long pendingViews(String chapterId) {
+        LongAdder adder = pending.get(chapterId);
+        return (adder == null ? 0 : adder.sum()) + flushing.getOrDefault(chapterId, 0L);
+    }
+
+    @Scheduled(fixedDelayString = "${app.views.flush-interval-ms:5000}")
+    public void flush() {
+        // sumThenReset lấy và xoá từng cell nguyên tử, lượt xem đến trong lúc flush được giữ cho lần sau
+        Map<String, Long> chapterDeltas = new HashMap<>();
+        pending.forEach((chapterId, adder) -> {
+            long delta = adder.sumThenReset();
+            if (delta > 0) {
+                chapterDeltas.put(chapterId, delta);
+            } else if (pending.remove(chapterId, adder)) {
+                // Không có lượt xem trong cả chu kỳ thì bỏ entry; lượt cộng trễ vào adder cũ được chuyển sang entry mới
+                long late = adder.sumThenReset();
+                if (late > 0) {
+                    pending.computeIfAbsent(chapterId, id -> new LongAdder()).add(late);
+                }
+            }
+        });
+        if (chapterDeltas.isEmpty()) {
+            return;
+        }
+        flushing = chapterDeltas;
+
+        Map<String, Long> mangaDeltas = new HashMap<>();
+        chapterDeltas.forEach((chapterId, delta) -> {
+            String mangaId = chapterMangaIds.getIfPresent(chapterId);
+            if (mangaId == null) {
+                mangaId = chapterRepository.findMangaIdById(chapterId).orElse(null);
+            }
+            if (mangaId != null) {
+                mangaDeltas.merge(mangaId, delta, Long::sum);
+            }
+        });
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(UPDATE_CHAPTER_VIEWS, toBatchArgs(chapterDeltas));
+                jdbcTemplate.batchUpdate(UPDATE_MANGA_VIEWS, toBatchArgs(mangaDeltas));
+                jdbcTemplate.batchUpdate(UPDATE_SUMMARY_VIEWS, toBatchArgs(mangaDeltas));
+            });
+        } catch (Exception e) {
+            // Trả lại phần chênh lệch để lần flush sau thử lại
+            log.error("Error flushing {} chapter view deltas: {}", chapterDeltas.size(), e.getMessage());
+            chapterDeltas.forEach((chapterId, delta) ->
+                    pending.computeIfAbsent(chapterId, id -> new LongAdder()).add(delta));
+            flushing = Map.of();
+            return;
+        }
+        // Bản cache không có phần vừa ghi, xoá trước rồi mới bỏ phần đang ghi khỏi pendingViews
+        chapterDeltas.keySet().forEach(catalogCache::evictChapter);
+        flushing = Map.of();
+
+        log.debug("Flushed views for {} chapters of {} mangas", chapterDeltas.size(), mangaDeltas.size());
+        // Lượt xem được tính vào giờ flush, lệch tối đa một chu kỳ flush
+        mangaDeltas.forEach(mangaTrendingIndex::record);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static List<Object[]> toBatchArgs(Map<String, Long> deltas) {
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((id, delta) -> args.add(new Object[]{delta, id}));
+        return args;
+    }
+}
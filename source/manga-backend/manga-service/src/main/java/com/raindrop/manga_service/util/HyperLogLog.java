@@ -0,0 +1,115 @@
+package com.raindrop.manga_service.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Ước lượng số phần tử khác nhau (HyperLogLog) trên giá trị băm 64 bit.
+ * Có 2^precision register, mỗi register một byte, sai số chuẩn khoảng 1.04 / sqrt(2^precision).
+ * Hai sketch cùng precision được gộp bằng cách lấy max từng register.
+ */
+public class HyperLogLog {
+    private final int precision;
+    private final byte[] registers;
+    // Ước lượng được tính lại khi có register thay đổi
+    private long cachedEstimate = -1;
+
+    public HyperLogLog(int precision) {
+        this(precision, new byte[1 << precision]);
+    }
+
+    private HyperLogLog(int precision, byte[] registers) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("Precision must be between 4 and 16: " + precision);
+        }
+        this.precision = precision;
+        this.registers = registers;
+    }
+
+    /**
+     * Khôi phục sketch từ mảng register đã lưu, precision suy ra từ độ dài mảng
+     */
+    public static HyperLogLog fromBytes(byte[] registers) {
+        if (registers.length == 0 || Integer.bitCount(registers.length) != 1) {
+            throw new IllegalArgumentException("Register count must be a power of two: " + registers.length);
+        }
+        return new HyperLogLog(Integer.numberOfTrailingZeros(registers.length), registers.clone());
+    }
+
+    /**
+     * Thêm một phần tử theo giá trị băm
+     * @return true nếu có register thay đổi (chắc chắn là phần tử chưa từng thấy)
+     */
+    public synchronized boolean add(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // Vị trí bit 1 đầu tiên của phần còn lại, chặn trên để không vượt quá 64 - precision + 1
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank <= registers[index]) {
+            return false;
+        }
+        registers[index] = (byte) rank;
+        cachedEstimate = -1;
+        return true;
+    }
+
+    /**
+     * Gộp register của sketch khác (ví dụ bản đã lưu bởi instance khác) vào sketch này
+     */
+    public synchronized void merge(byte[] other) {
+        if (other.length != registers.length) {
+            throw new IllegalArgumentException("Cannot merge sketches of different precision");
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other[i] > registers[i]) {
+                registers[i] = other[i];
+                cachedEstimate = -1;
+            }
+        }
+    }
+
+    public synchronized long estimate() {
+        if (cachedEstimate < 0) {
+            int m = registers.length;
+            double sum = 0;
+            int zeros = 0;
+            for (byte register : registers) {
+                sum += 1.0 / (1L << register);
+                if (register == 0) {
+                    zeros++;
+                }
+            }
+            double alpha = 0.7213 / (1 + 1.079 / m);
+            double estimate = alpha * m * m / sum;
+            // Khi còn ít phần tử, đếm register rỗng (linear counting) chính xác hơn
+            if (estimate <= 2.5 * m && zeros > 0) {
+                estimate = m * Math.log((double) m / zeros);
+            }
+            cachedEstimate = Math.round(estimate);
+        }
+        return cachedEstimate;
+    }
+
+    public synchronized byte[] toBytes() {
+        return registers.clone();
+    }
+
+    /**
+     * Băm chuỗi thành 64 bit (FNV-1a trên UTF-8, sau đó trộn bit để phân bố đều)
+     */
+    public static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Bước trộn cuối của SplitMix64
+     */
+    public static long mix(long hash) {
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+}
@@ -0,0 +1,41 @@
+package com.raindrop.manga_service.util;
+
+import com.raindrop.manga_service.enums.ErrorCode;
+import com.raindrop.manga_service.exception.AppException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Vị trí của bản ghi cuối cùng trong trang trước: giá trị cột sắp xếp và ID.
+ * Được mã hoá base64 để client chỉ coi đây là token, không tự tạo.
+ * @param sortKey Khoá sắp xếp mà cursor được tạo ra
+ * @param value Giá trị cột sắp xếp, null nếu cột rỗng
+ * @param id ID của bản ghi
+ */
+public record KeysetCursor(String sortKey, String value, String id) {
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = sortKey + SEPARATOR + (value == null ? "" : value) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Giải mã token, kiểm tra token được tạo cho đúng khoá sắp xếp
+     * @param token Token từ client
+     * @param expectedSortKey Khoá sắp xếp của request hiện tại
+     */
+    public static KeysetCursor decode(String token, String expectedSortKey) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3 || !parts[0].equals(expectedSortKey) || parts[2].isEmpty()) {
+                throw new AppException(ErrorCode.INVALID_CURSOR);
+            }
+            return new KeysetCursor(parts[0], parts[1].isEmpty() ? null : parts[1], parts[2]);
+        } catch (IllegalArgumentException e) {
+            throw new AppException(ErrorCode.INVALID_CURSOR);
+        }
+    }
+}
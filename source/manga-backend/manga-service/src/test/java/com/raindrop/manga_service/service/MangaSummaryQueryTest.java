@@ -0,0 +1,102 @@
+package com.raindrop.manga_service.service;
+
+import com.raindrop.manga_service.dto.response.MangaSummaryResponse;
+import com.raindrop.manga_service.entity.Chapter;
+import com.raindrop.manga_service.entity.Manga;
+import com.raindrop.manga_service.enums.MangaStatus;
+import com.raindrop.manga_service.mapper.MangaMapperImpl;
+import com.raindrop.manga_service.repository.httpclient.UploadClient;
+import com.raindrop.manga_service.search.MangaFilterIndex;
+import com.raindrop.manga_service.search.MangaSearchIndex;
+import com.raindrop.manga_service.search.MangaTrendingIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Danh sách manga trang chủ phải có số câu SQL cố định, không phụ thuộc số manga trong trang
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({MangaService.class, MangaSummaryService.class, MangaSearchIndex.class, MangaFilterIndex.class, MangaTrendingIndex.class, MangaMapperImpl.class})
+class MangaSummaryQueryTest {
+    private static final int MANGA_COUNT = 30;
+
+    @Autowired
+    MangaService mangaService;
+
+    @Autowired
+    MangaSummaryService mangaSummaryService;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    UploadClient uploadClient;
+
+    @MockitoBean
+    CatalogCache catalogCache;
+
+    @MockitoBean
+    UniqueReaderCounter uniqueReaderCounter;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 1; i <= MANGA_COUNT; i++) {
+            Manga manga = Manga.builder()
+                    .title("Manga " + i)
+                    .author("Author")
+                    .status(MangaStatus.ONGOING)
+                    .genres(new ArrayList<>())
+                    .build();
+            entityManager.persist(manga);
+
+            Chapter chapter = Chapter.builder()
+                    .chapterNumber(i)
+                    .title("Chapter " + i)
+                    .manga(manga)
+                    .build();
+            entityManager.persist(chapter);
+
+            manga.setLastChapterId(chapter.getId());
+            manga.setLastChapterAddedAt(LocalDateTime.now().minusMinutes(i));
+        }
+        entityManager.flush();
+        mangaSummaryService.rebuildAll();
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void summaryPageUsesConstantStatementCount() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Page<MangaSummaryResponse> page = mangaService.getMangaSummariesPaginated(
+                PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "lastChapterAddedAt")));
+
+        // Một câu lấy dữ liệu, một câu đếm tổng số phần tử
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(page.getContent()).hasSize(20);
+        assertThat(page.getTotalElements()).isEqualTo(MANGA_COUNT);
+        assertThat(page.getContent().get(0).getTitle()).isEqualTo("Manga 1");
+        assertThat(page.getContent().get(0).getLastChapterNumber()).isEqualTo(1);
+    }
+}
@@ -1,14 +1,22 @@
 package com.raindrop.upload_service.configuration;
 
 import jakarta.servlet.MultipartConfigElement;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.servlet.MultipartConfigFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartResolver;
+import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import java.util.Set;
 
 @Configuration
 public class MultipartConfig {
+    // Các endpoint tự đọc multipart body, không để Servlet container ghi ra file tạm trước
+    private static final Set<String> STREAMING_UPLOAD_PATHS = Set.of("/files/manga", "/files/manga/batch");
 
     @Value("${spring.servlet.multipart.max-file-size:50MB}")
     private String maxFileSize;
@@ -31,4 +39,15 @@ public class MultipartConfig {
         
         return factory.createMultipartConfig();
     }
+
+    @Bean(name = DispatcherServlet.MULTIPART_RESOLVER_BEAN_NAME)
+    public MultipartResolver multipartResolver() {
+        return new StandardServletMultipartResolver() {
+            @Override
+            public boolean isMultipart(HttpServletRequest request) {
+                String path = request.getRequestURI().substring(request.getContextPath().length());
+                return !STREAMING_UPLOAD_PATHS.contains(path) && super.isMultipart(request);
+            }
+        };
+    }
 }
@@ -2,20 +2,27 @@ package com.raindrop.upload_service.controller;
 
 import com.raindrop.upload_service.dto.response.ApiResponse;
 import com.raindrop.upload_service.dto.response.FileInfoResponse;
+import com.raindrop.upload_service.service.FileDownloadMetrics;
 import com.raindrop.upload_service.service.FileService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.multipart.support.MissingServletRequestPartException;
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/files")
@@ -23,13 +30,43 @@ import java.io.IOException;
 @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
 @Slf4j
 public class FileController {
+    private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_FILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_FILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS)
+            .cachePublic()
+            .immutable();
+    // Ảnh gốc trả tạm cho URL thu nhỏ: được lưu nhưng phải hỏi lại server (ETag) mỗi lần dùng
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePublic();
+
     FileService fileService;
+    FileDownloadMetrics downloadMetrics;
 
+    /**
+     * Upload một ảnh manga (phần "image"). Multipart body được đọc dạng stream, không qua
+     * bước spool file tạm của Servlet (xem MultipartConfig), mỗi file chỉ được ghi một lần.
+     */
     @PostMapping(value = "/manga", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ApiResponse<FileInfoResponse> uploadMangaFile(@RequestParam("image")MultipartFile file) throws IOException {
-        FileInfoResponse uploadImage = fileService.uploadMangaFile(file);
+    public ApiResponse<FileInfoResponse> uploadMangaFile(HttpServletRequest request) throws IOException, MissingServletRequestPartException {
+        List<FileInfoResponse> uploadImages = fileService.uploadMangaStream(request, "image");
+        if (uploadImages.isEmpty()) {
+            throw new MissingServletRequestPartException("image");
+        }
         return ApiResponse.<FileInfoResponse>builder()
-                .result(uploadImage)
+                .result(uploadImages.get(0))
+                .build();
+    }
+
+    /**
+     * Upload nhiều ảnh manga (các phần "images") theo thứ tự, đọc dạng stream như /manga
+     */
+    @PostMapping(value = "/manga/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ApiResponse<List<FileInfoResponse>> uploadMangaFiles(HttpServletRequest request) throws IOException {
+        List<FileInfoResponse> uploadImages = fileService.uploadMangaStream(request, "images");
+        return ApiResponse.<List<FileInfoResponse>>builder()
+                .result(uploadImages)
                 .build();
     }
 
@@ -41,13 +78,56 @@ public class FileController {
                 .build();
     }
 
+    /**
+     * Tải file. Nếu Tomcat hỗ trợ sendfile và request không có header Range thì
+     * nội dung được đẩy thẳng từ đĩa ra socket (FileChannel.transferTo), ngược lại
+     * Spring stream Resource theo từng khối và tự xử lý Range (206 Partial Content).
+     * Nội dung của một tên file không bao giờ đổi nên response được cache vĩnh viễn
+     * và các request có If-None-Match/If-Modified-Since khớp sẽ nhận 304.
+     * Tham số w chọn phiên bản thu nhỏ (thumb/list/reader) nếu đã được sinh; nếu chưa có thì
+     * ảnh gốc được trả với no-cache để lần sau client nhận được bản thu nhỏ.
+     */
     @GetMapping("/{fileName}")
-    public ResponseEntity<Resource> downloadImageFromFileSystem(@PathVariable String fileName) throws IOException {
-        var fileData = fileService.read(fileName);
+    public ResponseEntity<Resource> downloadImageFromFileSystem(@PathVariable String fileName,
+                                                                @RequestParam(value = "w", required = false) Integer width,
+                                                                HttpServletRequest request,
+                                                                WebRequest webRequest) throws IOException {
+        var fileData = fileService.read(fileName, width);
+        CacheControl cacheControl = fileData.isImmutable() ? IMMUTABLE : REVALIDATE;
+
+        if (webRequest.checkNotModified(fileData.getETag(), fileData.getLastModified())) {
+            downloadMetrics.recordDownload(true);
+            return ResponseEntity.<Resource>status(HttpStatus.NOT_MODIFIED)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+        downloadMetrics.recordDownload(false);
+        // Chỉ mở nội dung khi thực sự gửi, 304 không đọc file
+        Resource resource = fileService.openContent(fileData);
+
+        if (request.getHeader(HttpHeaders.RANGE) == null && trySendfile(request, resource)) {
+            return ResponseEntity.<Resource>status(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, fileData.getContentType())
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .cacheControl(cacheControl)
+                    .contentLength(resource.contentLength())
+                    .build();
+        }
+
         return ResponseEntity.<Resource>status(HttpStatus.OK)
                 .header(HttpHeaders.CONTENT_TYPE, fileData.getContentType())
-                .body(fileData.getResource());
+                .cacheControl(cacheControl)
+                .body(resource);
+    }
 
+    private boolean trySendfile(HttpServletRequest request, Resource resource) throws IOException {
+        if (!Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR)) || !resource.isFile()) {
+            return false;
+        }
+        request.setAttribute(SENDFILE_FILENAME_ATTR, resource.getFile().getAbsolutePath());
+        request.setAttribute(SENDFILE_FILE_START_ATTR, 0L);
+        request.setAttribute(SENDFILE_FILE_END_ATTR, resource.contentLength());
+        return true;
     }
 
     @DeleteMapping("/{fileName}")
@@ -0,0 +1,26 @@
+package com.raindrop.upload_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Nội dung file được lưu theo SHA-256. Nhiều FileInfo có cùng nội dung
+ * dùng chung một blob, refCount đếm số FileInfo đang tham chiếu tới blob.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class FileBlob {
+    @Id
+    @Column(length = 64)
+    String hash;
+    String filePath;
+    long size;
+    int refCount;
+    // Bitmask các ImageVariant đã sinh cho nội dung này (xem ImageVariant.toMask), null nếu chưa xử lý
+    Integer variants;
+}
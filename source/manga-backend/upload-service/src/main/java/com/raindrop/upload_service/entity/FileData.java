@@ -12,5 +12,13 @@ import org.springframework.core.io.Resource;
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class FileData {
     String contentType;
+    // Resource của nguồn lưu trữ; nội dung chỉ được đọc khi gửi cho client
     Resource resource;
+    // Khoá trong HotFileCache
+    String cacheKey;
+    String eTag;
+    long lastModified;
+    // false khi nội dung có thể đổi dưới cùng URL (ví dụ ảnh gốc trả tạm khi phiên bản thu nhỏ chưa có)
+    @Builder.Default
+    boolean immutable = true;
 }
@@ -10,11 +10,16 @@ import lombok.experimental.FieldDefaults;
 @AllArgsConstructor
 @Builder
 @FieldDefaults(level = AccessLevel.PRIVATE)
+@Table(indexes = @Index(name = "uk_file_info_name", columnList = "name", unique = true))
 public class FileInfo {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     Long id;
+    @Column(nullable = false)
     String name;
     String filePath;
     String fileType;
+    // SHA-256 của nội dung file, dùng làm ETag
+    @Column(length = 64)
+    String contentHash;
 }
@@ -0,0 +1,65 @@
+package com.raindrop.upload_service.enums;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Các phiên bản ảnh được sinh ra sau khi upload.
+ * Tất cả đều được nén lại dưới dạng JPEG; FULL giữ nguyên kích thước gốc.
+ */
+public enum ImageVariant {
+    THUMB(160),
+    LIST(320),
+    READER(960),
+    FULL(0);
+
+    private final int width;
+
+    ImageVariant(int width) {
+        this.width = width;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public String getDirectory() {
+        return name().toLowerCase();
+    }
+
+    /**
+     * Chọn phiên bản nhỏ nhất có chiều rộng không nhỏ hơn chiều rộng yêu cầu
+     * @param requestedWidth Chiều rộng client yêu cầu (tham số w)
+     * @return Phiên bản phù hợp, FULL nếu yêu cầu lớn hơn mọi phiên bản thu nhỏ
+     */
+    public static ImageVariant forWidth(int requestedWidth) {
+        Optional<ImageVariant> scaled = Arrays.stream(values())
+                .filter(variant -> variant != FULL && variant.width >= requestedWidth)
+                .min(Comparator.comparingInt(ImageVariant::getWidth));
+        return scaled.orElse(FULL);
+    }
+
+    /**
+     * Gộp các phiên bản thành bitmask để lưu trong một cột
+     */
+    public static int toMask(Set<ImageVariant> variants) {
+        int mask = 0;
+        for (ImageVariant variant : variants) {
+            mask |= 1 << variant.ordinal();
+        }
+        return mask;
+    }
+
+    public static Set<ImageVariant> fromMask(int mask) {
+        Set<ImageVariant> variants = EnumSet.noneOf(ImageVariant.class);
+        for (ImageVariant variant : values()) {
+            if ((mask & (1 << variant.ordinal())) != 0) {
+                variants.add(variant);
+            }
+        }
+        return variants;
+    }
+}
@@ -0,0 +1,35 @@
+package com.raindrop.upload_service.repository;
+
+import com.raindrop.upload_service.entity.FileBlob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public interface FileBlobRepository extends JpaRepository<FileBlob, String> {
+    /**
+     * Lấy blob và khoá dòng tương ứng cho tới hết transaction
+     * @param hash SHA-256 của nội dung
+     * @return Blob nếu tồn tại
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM FileBlob b WHERE b.hash = :hash")
+    Optional<FileBlob> findByHashForUpdate(@Param("hash") String hash);
+
+    Optional<FileBlob> findByFilePath(String filePath);
+
+    /**
+     * Ghi lại các phiên bản ảnh đã sinh cho blob
+     * @param variants Bitmask theo ImageVariant.toMask
+     * @return 0 nếu blob đã bị xoá
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE FileBlob b SET b.variants = :variants WHERE b.hash = :hash")
+    int updateVariants(@Param("hash") String hash, @Param("variants") int variants);
+}
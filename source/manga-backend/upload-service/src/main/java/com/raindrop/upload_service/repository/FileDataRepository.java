@@ -1,10 +1,40 @@
 package com.raindrop.upload_service.repository;
 
 import com.raindrop.upload_service.entity.FileInfo;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 import java.util.Optional;
 
-public interface FileDataRepository extends JpaRepository<FileInfo, Long> {
+public interface FileDataRepository extends JpaRepository<FileInfo, Long>, FileDataRepositoryCustom {
     Optional<FileInfo> findByName(String fileName);
     boolean existsByName(String fileName);
+
+    /**
+     * @param filePath Key lưu trữ
+     * @return Tên của các FileInfo đang trỏ tới key
+     */
+    @Query("SELECT f.name FROM FileInfo f WHERE f.filePath = :filePath")
+    List<String> findNamesByFilePath(@Param("filePath") String filePath);
+
+    /**
+     * Chuyển các FileInfo đang trỏ tới oldPath sang newPath; dòng đã bị xoá hoặc
+     * đã được chuyển không bị ảnh hưởng
+     * @return Số dòng được cập nhật
+     */
+    @Modifying
+    @Query("UPDATE FileInfo f SET f.filePath = :newPath WHERE f.filePath = :oldPath")
+    int updateFilePath(@Param("oldPath") String oldPath, @Param("newPath") String newPath);
+
+    /**
+     * Lấy các file còn lưu phẳng (chưa chuyển sang key chia thư mục), theo thứ tự id
+     * @param afterId Chỉ lấy các file có id lớn hơn
+     */
+    @Query("SELECT f FROM FileInfo f WHERE f.id > :afterId " +
+            "AND f.filePath NOT LIKE 'manga/%' AND f.filePath NOT LIKE 'user/%' ORDER BY f.id")
+    List<FileInfo> findLegacyFiles(@Param("afterId") long afterId, Pageable pageable);
 }
@@ -0,0 +1,13 @@
+package com.raindrop.upload_service.repository;
+
+import com.raindrop.upload_service.entity.FileInfo;
+
+import java.util.List;
+
+public interface FileDataRepositoryCustom {
+    /**
+     * Thêm nhiều FileInfo trong một JDBC batch, tất cả hoặc không dòng nào
+     * @param files Danh sách file cần lưu
+     */
+    void batchInsert(List<FileInfo> files);
+}
@@ -0,0 +1,35 @@
+package com.raindrop.upload_service.repository;
+
+import com.raindrop.upload_service.entity.FileInfo;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * FileInfo dùng khoá IDENTITY nên Hibernate không gộp được các câu INSERT,
+ * batch được thực hiện trực tiếp qua JdbcTemplate.
+ */
+@RequiredArgsConstructor
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class FileDataRepositoryImpl implements FileDataRepositoryCustom {
+    private static final String INSERT_SQL =
+            "INSERT INTO file_info (name, file_path, file_type, content_hash) VALUES (?, ?, ?, ?)";
+
+    JdbcTemplate jdbcTemplate;
+
+    // Cả lô trong một transaction: một dòng lỗi thì không dòng nào được lưu, nơi gọi trả lại blob an toàn
+    @Override
+    @Transactional
+    public void batchInsert(List<FileInfo> files) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, files, files.size(), (ps, file) -> {
+            ps.setString(1, file.getName());
+            ps.setString(2, file.getFilePath());
+            ps.setString(3, file.getFileType());
+            ps.setString(4, file.getContentHash());
+        });
+    }
+}
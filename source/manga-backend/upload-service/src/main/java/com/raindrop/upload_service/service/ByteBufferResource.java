@@ -0,0 +1,71 @@
+package com.raindrop.upload_service.service;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Resource đọc từ một ByteBuffer (thường là direct buffer nằm ngoài heap).
+ * Mỗi lần mở stream dùng một bản duplicate nên nhiều request có thể đọc song song.
+ */
+public class ByteBufferResource extends AbstractResource {
+    private final ByteBuffer buffer;
+    private final long lastModified;
+    private final String description;
+
+    public ByteBufferResource(ByteBuffer buffer, long lastModified, String description) {
+        this.buffer = buffer.asReadOnlyBuffer();
+        this.lastModified = lastModified;
+        this.description = description;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        ByteBuffer view = buffer.duplicate();
+        view.rewind();
+        return new InputStream() {
+            @Override
+            public int read() {
+                return view.hasRemaining() ? view.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (!view.hasRemaining()) {
+                    return -1;
+                }
+                int n = Math.min(len, view.remaining());
+                view.get(b, off, n);
+                return n;
+            }
+
+            @Override
+            public long skip(long n) {
+                int skipped = (int) Math.max(0, Math.min(n, view.remaining()));
+                view.position(view.position() + skipped);
+                return skipped;
+            }
+
+            @Override
+            public int available() {
+                return view.remaining();
+            }
+        };
+    }
+
+    @Override
+    public long contentLength() {
+        return buffer.capacity();
+    }
+
+    @Override
+    public long lastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Cached [" + description + "]";
+    }
+}
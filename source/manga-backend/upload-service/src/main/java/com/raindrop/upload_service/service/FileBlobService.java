@@ -0,0 +1,108 @@
+package com.raindrop.upload_service.service;
+
+import com.raindrop.upload_service.entity.FileBlob;
+import com.raindrop.upload_service.enums.ImageVariant;
+import com.raindrop.upload_service.repository.FileBlobRepository;
+import com.raindrop.upload_service.storage.StorageBackend;
+import com.raindrop.upload_service.storage.StorageKeys;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Quản lý blob nội dung theo SHA-256: nội dung giống nhau chỉ được ghi một lần,
+ * file trên đĩa chỉ bị xoá khi không còn FileInfo nào tham chiếu.
+ */
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+@Slf4j
+public class FileBlobService {
+    FileBlobRepository fileBlobRepository;
+    StorageBackend storageBackend;
+    ImageDerivativeService imageDerivativeService;
+
+    /**
+     * Tăng refCount nếu blob đã tồn tại, ngược lại ghi file và tạo blob mới
+     * @param hash SHA-256 của nội dung
+     * @param namespace Vùng lưu blob mới (xem StorageKeys)
+     * @param file File upload
+     * @return Key lưu trữ của blob
+     */
+    @Transactional
+    public String acquire(String hash, String namespace, MultipartFile file) throws IOException {
+        return acquire(hash, namespace, file.getSize(), key -> storageBackend.store(key, file));
+    }
+
+    /**
+     * Như {@link #acquire(String, String, MultipartFile)} nhưng nội dung đã được ghi sẵn
+     * vào file tạm; file tạm được chuyển thành blob nếu blob chưa tồn tại. Người gọi xoá
+     * file tạm còn lại sau khi xong, để còn thử lại được khi transaction bị huỷ.
+     * @param staged File tạm tạo bởi StorageBackend.createStagingFile
+     * @param size Kích thước nội dung
+     */
+    @Transactional
+    public String acquire(String hash, String namespace, Path staged, long size) throws IOException {
+        return acquire(hash, namespace, size, key -> storageBackend.store(key, staged));
+    }
+
+    private String acquire(String hash, String namespace, long size, ContentWriter writer) throws IOException {
+        Optional<FileBlob> existing = fileBlobRepository.findByHashForUpdate(hash);
+        if (existing.isPresent()) {
+            FileBlob blob = existing.get();
+            blob.setRefCount(blob.getRefCount() + 1);
+            log.info("Reusing blob {} (refCount {})", hash, blob.getRefCount());
+            return blob.getFilePath();
+        }
+
+        String filePath = StorageKeys.sharded(namespace, hash);
+        if (!storageBackend.exists(filePath)) {
+            writer.write(filePath);
+        }
+        fileBlobRepository.saveAndFlush(FileBlob.builder()
+                .hash(hash)
+                .filePath(filePath)
+                .size(size)
+                .refCount(1)
+                .build());
+        return filePath;
+    }
+
+    /**
+     * Giảm refCount của blob, xoá file và các phiên bản ảnh khi không còn tham chiếu
+     * @param hash SHA-256 của nội dung
+     * @param filePath Đường dẫn mà FileInfo đang trỏ tới
+     * @return true nếu file thuộc về blob, false nếu là file cũ được lưu trực tiếp
+     */
+    @Transactional
+    public boolean release(String hash, String filePath) throws IOException {
+        Optional<FileBlob> existing = fileBlobRepository.findByHashForUpdate(hash);
+        if (existing.isEmpty() || !existing.get().getFilePath().equals(filePath)) {
+            return false;
+        }
+        FileBlob blob = existing.get();
+        blob.setRefCount(blob.getRefCount() - 1);
+        if (blob.getRefCount() <= 0) {
+            fileBlobRepository.delete(blob);
+            storageBackend.delete(blob.getFilePath());
+            if (blob.getVariants() != null) {
+                imageDerivativeService.deleteVariants(hash, ImageVariant.fromMask(blob.getVariants()));
+            }
+            log.info("Deleted blob {}", hash);
+        }
+        return true;
+    }
+
+    @FunctionalInterface
+    private interface ContentWriter {
+        void write(String key) throws IOException;
+    }
+}
@@ -0,0 +1,45 @@
+package com.raindrop.upload_service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.stereotype.Component;
+
+/**
+ * Thống kê lượt tải file và tỉ lệ request được trả về 304 Not Modified
+ */
+@Component
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class FileDownloadMetrics {
+    Counter downloads;
+    Counter notModified;
+
+    public FileDownloadMetrics(MeterRegistry registry) {
+        Counter downloads = Counter.builder("upload.files.downloads")
+                .description("Number of GET /files/{fileName} requests")
+                .register(registry);
+        Counter notModified = Counter.builder("upload.files.not_modified")
+                .description("Number of downloads answered with 304 Not Modified")
+                .register(registry);
+        this.downloads = downloads;
+        this.notModified = notModified;
+        // Gauge chỉ giữ hai counter, không giữ this khi object chưa khởi tạo xong
+        Gauge.builder("upload.files.not_modified.ratio", () -> notModifiedRatio(downloads, notModified))
+                .description("Share of downloads answered with 304 Not Modified")
+                .register(registry);
+    }
+
+    public void recordDownload(boolean wasNotModified) {
+        downloads.increment();
+        if (wasNotModified) {
+            notModified.increment();
+        }
+    }
+
+    private static double notModifiedRatio(Counter downloads, Counter notModified) {
+        double total = downloads.count();
+        return total == 0 ? 0 : notModified.count() / total;
+    }
+}
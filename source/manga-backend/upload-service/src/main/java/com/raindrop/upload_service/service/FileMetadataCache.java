@@ -0,0 +1,97 @@
+package com.raindrop.upload_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.raindrop.upload_service.entity.FileBlob;
+import com.raindrop.upload_service.entity.FileInfo;
+import com.raindrop.upload_service.enums.ImageVariant;
+import com.raindrop.upload_service.repository.FileBlobRepository;
+import com.raindrop.upload_service.repository.FileDataRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Cache thông tin FileInfo theo tên file. Tên file là UUID và không bao giờ được
+ * tái sử dụng nên entry chỉ cần xoá khi file bị xoá, không cần TTL.
+ * Các phiên bản ảnh đã sinh được cache riêng theo contentHash; entry có TTL vì phiên bản
+ * có thể được sinh xong trên một instance khác sau khi instance này đã cache kết quả rỗng.
+ */
+@Component
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class FileMetadataCache {
+    FileDataRepository fileDataRepository;
+    FileBlobRepository fileBlobRepository;
+    Cache<String, FileInfo> cache;
+    // Bitmask ImageVariant theo contentHash, 0 nếu chưa có phiên bản nào
+    Cache<String, Integer> variants;
+
+    public FileMetadataCache(FileDataRepository fileDataRepository,
+                             FileBlobRepository fileBlobRepository,
+                             @Value("${app.cache.file-metadata.max-entries:100000}") long maxEntries,
+                             @Value("${app.cache.file-metadata.variants-ttl:10m}") Duration variantsTtl,
+                             MeterRegistry registry) {
+        this.fileDataRepository = fileDataRepository;
+        this.fileBlobRepository = fileBlobRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .recordStats()
+                .build();
+        this.variants = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(variantsTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "upload.file-metadata");
+        CaffeineCacheMetrics.monitor(registry, variants, "upload.image-variants");
+    }
+
+    /**
+     * Lấy FileInfo từ cache, truy vấn database nếu chưa có.
+     * Tên file không tồn tại thì không được cache.
+     */
+    public Optional<FileInfo> findByName(String fileName) {
+        FileInfo cached = cache.getIfPresent(fileName);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<FileInfo> fileInfo = fileDataRepository.findByName(fileName);
+        fileInfo.ifPresent(info -> cache.put(fileName, info));
+        return fileInfo;
+    }
+
+    public void put(FileInfo fileInfo) {
+        cache.put(fileInfo.getName(), fileInfo);
+    }
+
+    public void invalidate(String fileName) {
+        cache.invalidate(fileName);
+    }
+
+    /**
+     * Các phiên bản ảnh đã sinh cho nội dung, lấy từ blob nếu chưa có trong cache
+     * @param contentHash SHA-256 của nội dung
+     * @return Rỗng nếu chưa sinh hoặc file không có blob
+     */
+    public Set<ImageVariant> findVariants(String contentHash) {
+        int mask = variants.get(contentHash, hash -> fileBlobRepository.findById(hash)
+                .map(FileBlob::getVariants)
+                .orElse(0));
+        return ImageVariant.fromMask(mask);
+    }
+
+    public void putVariants(String contentHash, Set<ImageVariant> generated) {
+        variants.put(contentHash, ImageVariant.toMask(generated));
+    }
+
+    public void invalidateVariants(String contentHash) {
+        variants.invalidate(contentHash);
+    }
+}
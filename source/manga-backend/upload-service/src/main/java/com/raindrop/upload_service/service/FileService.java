@@ -3,22 +3,39 @@ package com.raindrop.upload_service.service;
 import com.raindrop.upload_service.dto.response.FileInfoResponse;
 import com.raindrop.upload_service.entity.FileData;
 import com.raindrop.upload_service.entity.FileInfo;
+import com.raindrop.upload_service.enums.ImageVariant;
 import com.raindrop.upload_service.repository.FileDataRepository;
+import com.raindrop.upload_service.storage.StorageBackend;
+import com.raindrop.upload_service.storage.StorageKeys;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 
 @Service
@@ -27,73 +44,251 @@ import java.util.*;
 @Slf4j
 public class FileService {
     FileDataRepository fileDataRepository;
+    FileBlobService fileBlobService;
+    FileMetadataCache fileMetadataCache;
+    HotFileCache hotFileCache;
+    ImageDerivativeService imageDerivativeService;
+    StorageBackend storageBackend;
 
-    @Value("${app.upload.manga}")
+    @Value("${spring.servlet.multipart.max-file-size:50MB}")
     @NonFinal
-    String MANGA_FOLDER_PATH;
+    DataSize maxFileSize;
 
-    @Value("${app.upload.user}")
+    @Value("${spring.servlet.multipart.max-request-size:1000MB}")
     @NonFinal
-    String USER_FOLDER_PATH;
+    DataSize maxRequestSize;
 
-    public FileInfoResponse uploadMangaFile(MultipartFile file) throws IOException {
-        String fileExtension = StringUtils.getFilenameExtension(Objects.requireNonNull(file.getOriginalFilename()));
-        String fileName = Objects.isNull(fileExtension)
-                ? UUID.randomUUID().toString()
-                : UUID.randomUUID().toString() + "." + fileExtension;
+    /**
+     * Upload ảnh manga bằng cách đọc thẳng multipart body của request: mỗi phần file
+     * được ghi một lần vào file tạm cạnh vị trí đích, vừa ghi vừa tính SHA-256 và
+     * kiểm tra kích thước, rồi đổi tên thành blob. Không có bước spool của Servlet.
+     * @param request Request multipart chưa được parse
+     * @param fieldName Tên phần chứa file, các phần khác bị bỏ qua
+     * @return Tên file theo thứ tự các phần trong request
+     */
+    public List<FileInfoResponse> uploadMangaStream(HttpServletRequest request, String fieldName) throws IOException {
+        if (!JakartaServletFileUpload.isMultipartContent(request)) {
+            throw new IOException("Request is not multipart");
+        }
+        JakartaServletFileUpload<?, ?> upload = new JakartaServletFileUpload<>();
+        upload.setFileSizeMax(maxFileSize.toBytes());
+        upload.setSizeMax(maxRequestSize.toBytes());
 
-        FileInfo fileData = fileDataRepository.save(FileInfo.builder()
-                        .name(fileName)
-                        .filePath(MANGA_FOLDER_PATH + fileName)
-                        .fileType(file.getContentType())
-                .build());
+        List<FileInfo> stored = new ArrayList<>();
+        try {
+            FileItemInputIterator items = upload.getItemIterator(request);
+            while (items.hasNext()) {
+                FileItemInput item = items.next();
+                if (item.isFormField() || !fieldName.equals(item.getFieldName())) {
+                    continue;
+                }
+                try (InputStream in = item.getInputStream()) {
+                    stored.add(storeStream(in, item.getName(), item.getContentType(), StorageKeys.MANGA));
+                }
+            }
+            fileDataRepository.batchInsert(stored);
+        } catch (IOException | RuntimeException e) {
+            for (FileInfo fileInfo : stored) {
+                fileBlobService.release(fileInfo.getContentHash(), fileInfo.getFilePath());
+            }
+            throw e;
+        }
 
-        file.transferTo(new File(fileData.getFilePath()));
+        stored.forEach(imageDerivativeService::submit);
+        log.info("Streamed {} manga files", stored.size());
+        return stored.stream()
+                .map(fileInfo -> FileInfoResponse.builder().name(fileInfo.getName()).build())
+                .toList();
+    }
+
+    public FileInfoResponse uploadUserFile(MultipartFile file) throws IOException {
+        FileInfo fileData = saveFileInfo(storeFile(file, StorageKeys.USER, null));
+
+        fileMetadataCache.put(fileData);
         return FileInfoResponse.builder()
-                .name(fileName)
+                .name(fileData.getName())
                 .build();
     }
 
-    public FileInfoResponse uploadUserFile(MultipartFile file) throws IOException {
-        String fileExtension = StringUtils.getFilenameExtension(Objects.requireNonNull(file.getOriginalFilename()));
-        String fileName = Objects.isNull(fileExtension)
-                ? UUID.randomUUID().toString()
-                : UUID.randomUUID().toString() + "." + fileExtension;
+    /**
+     * Ghi nội dung file theo SHA-256 và tạo FileInfo (chưa lưu) trỏ tới blob.
+     * Nội dung đã tồn tại thì không ghi lại mà chỉ tăng refCount của blob.
+     */
+    private FileInfo storeFile(MultipartFile file, String namespace, String contentType) throws IOException {
+        String fileName = newFileName(Objects.requireNonNull(file.getOriginalFilename()));
+
+        String contentHash = sha256(file.getInputStream());
+        String filePath = acquireWithRetry(() -> fileBlobService.acquire(contentHash, namespace, file));
 
-        FileInfo fileData = fileDataRepository.save(FileInfo.builder()
+        return FileInfo.builder()
                 .name(fileName)
-                .filePath(USER_FOLDER_PATH + fileName)
-                .build());
+                .filePath(filePath)
+                .fileType(contentType)
+                .contentHash(contentHash)
+                .build();
+    }
 
-        file.transferTo(new File(fileData.getFilePath()));
-        return FileInfoResponse.builder()
+    private FileInfo storeStream(InputStream in, String originalFilename, String contentType, String namespace) throws IOException {
+        String fileName = newFileName(originalFilename);
+        MessageDigest digest = newSha256();
+        Path staged = storageBackend.createStagingFile(namespace);
+        long size;
+        try (DigestInputStream digestIn = new DigestInputStream(in, digest)) {
+            size = Files.copy(digestIn, staged, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(staged);
+            throw e;
+        }
+        String contentHash = HexFormat.of().formatHex(digest.digest());
+
+        String filePath;
+        try {
+            filePath = acquireWithRetry(() -> fileBlobService.acquire(contentHash, namespace, staged, size));
+        } finally {
+            // File tạm đã được chuyển thành blob, hoặc thừa vì blob cùng nội dung đã có
+            Files.deleteIfExists(staged);
+        }
+
+        return FileInfo.builder()
                 .name(fileName)
+                .filePath(filePath)
+                .fileType(contentType)
+                .contentHash(contentHash)
                 .build();
     }
 
+    /**
+     * Lưu FileInfo, trả lại blob đã nhận nếu lưu thất bại để refCount không bị tăng thừa
+     */
+    private FileInfo saveFileInfo(FileInfo fileInfo) throws IOException {
+        try {
+            return fileDataRepository.save(fileInfo);
+        } catch (RuntimeException e) {
+            fileBlobService.release(fileInfo.getContentHash(), fileInfo.getFilePath());
+            throw e;
+        }
+    }
+
+    /**
+     * Thử lại acquire một lần khi một request khác vừa tạo blob cùng nội dung (trùng khoá)
+     * hoặc transaction bị huỷ do chờ khoá quá lâu/deadlock trên dòng blob
+     */
+    private String acquireWithRetry(BlobAcquirer acquirer) throws IOException {
+        try {
+            return acquirer.acquire();
+        } catch (DataIntegrityViolationException | PessimisticLockingFailureException e) {
+            log.warn("Retrying blob acquire after {}", e.getClass().getSimpleName());
+            return acquirer.acquire();
+        }
+    }
+
+    private String newFileName(String originalFilename) {
+        String fileExtension = StringUtils.getFilenameExtension(originalFilename);
+        return Objects.isNull(fileExtension)
+                ? UUID.randomUUID().toString()
+                : UUID.randomUUID().toString() + "." + fileExtension;
+    }
+
+    /**
+     * Đọc file để trả về cho client. File không được nạp vào bộ nhớ mà được
+     * stream trực tiếp từ đĩa, nên heap dùng cho mỗi lượt tải là hằng số.
+     * Tên file là UUID nên nội dung không bao giờ đổi, ETag là SHA-256 của nội dung.
+     * Metadata được lấy từ cache nên file đọc nhiều không phát sinh truy vấn SQL.
+     */
     public FileData read(String fileName) throws IOException {
-        var file = fileDataRepository.findByName(fileName).orElseThrow();
+        return read(fileName, null);
+    }
+
+    /**
+     * Đọc metadata của file (ETag, thời gian sửa, resource chưa mở), ưu tiên phiên bản
+     * thu nhỏ phù hợp với chiều rộng yêu cầu. Nội dung được lấy riêng bằng openContent
+     * sau khi đã kiểm tra If-None-Match/If-Modified-Since.
+     * @param fileName Tên file
+     * @param width Chiều rộng mong muốn, null để lấy ảnh gốc
+     */
+    public FileData read(String fileName, Integer width) throws IOException {
+        var file = fileMetadataCache.findByName(fileName).orElseThrow();
+        String contentType = Objects.nonNull(file.getFileType())
+                ? file.getFileType()
+                : MediaTypeFactory.getMediaType(fileName).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+        Resource resource = storageBackend.load(file.getFilePath());
+
+        // File upload trước khi có cột contentHash: tính một lần rồi lưu lại
+        if (Objects.isNull(file.getContentHash())) {
+            try (InputStream in = resource.getInputStream()) {
+                file.setContentHash(sha256(in));
+            }
+            fileDataRepository.save(file);
+        }
+
+        if (Objects.nonNull(width)) {
+            Optional<ImageVariant> variant = imageDerivativeService.findVariant(file.getContentHash(), width);
+            if (variant.isPresent()) {
+                Resource variantResource = storageBackend.load(imageDerivativeService.variantKey(file.getContentHash(), variant.get()));
+                String variantKey = variant.get().getDirectory();
+                // Phiên bản thuộc về nội dung nên các file trùng nội dung dùng chung một entry
+                return FileData.builder()
+                        .contentType(MediaType.IMAGE_JPEG_VALUE)
+                        .resource(variantResource)
+                        .cacheKey(file.getContentHash() + "@" + variantKey)
+                        .eTag("\"" + file.getContentHash() + "-" + variantKey + "\"")
+                        .lastModified(variantResource.lastModified())
+                        .build();
+            }
+        }
+
+        // Ảnh gốc trả thay cho phiên bản thu nhỏ chưa sinh xong: client phải hỏi lại để nhận bản thu nhỏ sau này
         return FileData.builder()
-                .contentType(file.getFileType())
-                .resource(new ByteArrayResource(readFile(fileName)))
+                .contentType(contentType)
+                .resource(resource)
+                .cacheKey(fileName)
+                .eTag("\"" + file.getContentHash() + "\"")
+                .lastModified(resource.lastModified())
+                .immutable(Objects.isNull(width))
                 .build();
     }
 
-
-    public byte[] readFile(String fileName) throws IOException {
-        Optional<FileInfo> fileData = fileDataRepository.findByName(fileName);
-        String filePath=fileData.get().getFilePath();
-        byte[] images = Files.readAllBytes(new File(filePath).toPath());
-        return images;
+    /**
+     * Nội dung để gửi cho client: bản trong HotFileCache nếu file đủ nóng, ngược lại là
+     * resource gốc (file cục bộ được gửi bằng sendfile)
+     */
+    public Resource openContent(FileData fileData) throws IOException {
+        return hotFileCache.get(fileData.getCacheKey(), fileData.getResource());
     }
 
     public void deleteFile(String fileName) throws IOException {
-        Optional<FileInfo> fileData = fileDataRepository.findByName(fileName);
+        Optional<FileInfo> fileData = fileMetadataCache.findByName(fileName);
         String filePath=fileData.get().getFilePath();
-        Files.deleteIfExists(Paths.get(filePath));
         fileDataRepository.delete(fileData.get());
+        // File cũ (trước khi có blob) không có blob tương ứng thì xoá trực tiếp
+        String contentHash = fileData.get().getContentHash();
+        if (Objects.isNull(contentHash) || !fileBlobService.release(contentHash, filePath)) {
+            storageBackend.delete(filePath);
+        }
+        // Phiên bản ảnh được xoá cùng blob; entry theo contentHash trong HotFileCache có thể còn
+        // được file trùng nội dung dùng nên để Caffeine tự loại bỏ
+        fileMetadataCache.invalidate(fileName);
+        hotFileCache.invalidate(fileName);
     }
 
+    private String sha256(InputStream in) throws IOException {
+        MessageDigest digest = newSha256();
+        try (DigestInputStream digestIn = new DigestInputStream(in, digest)) {
+            digestIn.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
 
+    private MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 
+    @FunctionalInterface
+    private interface BlobAcquirer {
+        String acquire() throws IOException;
+    }
 }
@@ -0,0 +1,111 @@
+package com.raindrop.upload_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cache nội dung các file được đọc nhiều (trang đầu của chapter mới, ảnh bìa) từ backend
+ * không phải file cục bộ (S3). File cục bộ không được cache: page cache của hệ điều hành
+ * đã giữ file nóng và FileSystemResource cho phép gửi bằng sendfile.
+ * Một file chỉ được nạp vào cache khi đã được đọc admit-after lần (lần đọc đầu stream
+ * thẳng từ nguồn). Dữ liệu nằm trong direct ByteBuffer nên không tạo áp lực lên heap;
+ * tổng dung lượng bị giới hạn theo byte và Caffeine dùng W-TinyLFU để quyết định file nào được giữ lại.
+ */
+@Component
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+@Slf4j
+public class HotFileCache {
+    Cache<String, CachedFile> cache;
+    // Số lần đọc gần đây của các file chưa được cache
+    Cache<String, AtomicInteger> reads;
+    long maxEntryBytes;
+    int admitAfter;
+
+    public HotFileCache(@Value("${app.cache.hot-files.max-bytes:256MB}") String maxBytes,
+                        @Value("${app.cache.hot-files.max-entry-bytes:8MB}") String maxEntryBytes,
+                        @Value("${app.cache.hot-files.admit-after:2}") int admitAfter,
+                        MeterRegistry registry) {
+        this.maxEntryBytes = DataSize.parse(maxEntryBytes).toBytes();
+        this.admitAfter = admitAfter;
+        this.reads = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(DataSize.parse(maxBytes).toBytes())
+                .weigher((String key, CachedFile value) -> value.bytes().capacity())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(registry, cache, "upload.hot-files");
+        Gauge.builder("upload.hot-files.bytes", cache,
+                        c -> c.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L))
+                .description("Total bytes held by the hot file cache")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Trả về nội dung file từ cache nếu có, ngược lại trả về nguyên nguồn.
+     * File cục bộ và file lớn hơn max-entry-bytes không bao giờ được cache.
+     */
+    public Resource get(String fileName, Resource source) throws IOException {
+        if (source.isFile() || source.contentLength() > maxEntryBytes) {
+            return source;
+        }
+        CachedFile cached = cache.getIfPresent(fileName);
+        if (cached == null) {
+            if (reads.get(fileName, key -> new AtomicInteger()).incrementAndGet() < admitAfter) {
+                return source;
+            }
+            try {
+                cached = cache.get(fileName, key -> load(source));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            reads.invalidate(fileName);
+        }
+        return new ByteBufferResource(cached.bytes(), cached.lastModified(), fileName);
+    }
+
+    public void invalidate(String fileName) {
+        cache.invalidate(fileName);
+        reads.invalidate(fileName);
+    }
+
+    private CachedFile load(Resource source) {
+        try (ReadableByteChannel channel = source.isFile()
+                ? source.readableChannel()
+                : Channels.newChannel(source.getInputStream())) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int) source.contentLength());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // đọc tới khi đầy buffer hoặc hết file
+            }
+            buffer.flip();
+            return new CachedFile(buffer, source.lastModified());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    record CachedFile(ByteBuffer bytes, long lastModified) {
+    }
+}
@@ -0,0 +1,277 @@
+package com.raindrop.upload_service.service;
+
+import com.raindrop.upload_service.entity.FileBlob;
+import com.raindrop.upload_service.entity.FileInfo;
+import com.raindrop.upload_service.enums.ImageVariant;
+import com.raindrop.upload_service.repository.FileBlobRepository;
+import com.raindrop.upload_service.storage.StorageBackend;
+import com.raindrop.upload_service.storage.StorageKeys;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sinh các phiên bản thu nhỏ/nén lại của ảnh manga sau khi upload.
+ * Việc xử lý chạy trên một pool giới hạn số luồng và hàng đợi; khi hàng đợi đầy
+ * ảnh sẽ không có phiên bản phụ và client nhận ảnh gốc.
+ * Phiên bản được sinh một lần cho mỗi nội dung (theo contentHash) và được ghi lại trên blob,
+ * nên các file trùng nội dung dùng chung phiên bản và lượt đọc không phải hỏi storage.
+ */
+@Service
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+@Slf4j
+public class ImageDerivativeService {
+    ThreadPoolExecutor executor;
+    StorageBackend storageBackend;
+    FileBlobRepository fileBlobRepository;
+    FileMetadataCache fileMetadataCache;
+    Path legacyVariantRoot;
+    float jpegQuality;
+    long maxPixels;
+
+    public ImageDerivativeService(StorageBackend storageBackend,
+                                  FileBlobRepository fileBlobRepository,
+                                  FileMetadataCache fileMetadataCache,
+                                  @Value("${app.upload.manga}") String mangaFolderPath,
+                                  @Value("${app.derivatives.workers:2}") int workers,
+                                  @Value("${app.derivatives.queue-capacity:500}") int queueCapacity,
+                                  @Value("${app.derivatives.jpeg-quality:0.8}") float jpegQuality,
+                                  @Value("${app.derivatives.max-pixels:50000000}") long maxPixels) {
+        this.storageBackend = storageBackend;
+        this.fileBlobRepository = fileBlobRepository;
+        this.fileMetadataCache = fileMetadataCache;
+        this.legacyVariantRoot = Paths.get(mangaFolderPath, "variants");
+        this.jpegQuality = jpegQuality;
+        this.maxPixels = maxPixels;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-derivative-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> log.warn("Derivative queue is full, skipping task"));
+    }
+
+    /**
+     * Đưa ảnh vào hàng đợi để sinh các phiên bản phụ
+     * @param fileInfo Thông tin file vừa upload
+     */
+    public void submit(FileInfo fileInfo) {
+        executor.execute(() -> {
+            try {
+                generate(fileInfo);
+            } catch (Exception e) {
+                log.error("Error generating derivatives for {}: {}", fileInfo.getName(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Tìm phiên bản phù hợp với chiều rộng yêu cầu, theo danh sách phiên bản đã ghi lại
+     * (không kiểm tra sự tồn tại trên storage)
+     * @param contentHash SHA-256 của ảnh gốc
+     * @param requestedWidth Chiều rộng yêu cầu
+     * @return Phiên bản đã được sinh, rỗng nếu chưa có
+     */
+    public Optional<ImageVariant> findVariant(String contentHash, int requestedWidth) {
+        if (Objects.isNull(contentHash)) {
+            return Optional.empty();
+        }
+        Set<ImageVariant> generated = fileMetadataCache.findVariants(contentHash);
+        ImageVariant variant = ImageVariant.forWidth(requestedWidth);
+        if (generated.contains(variant)) {
+            return Optional.of(variant);
+        }
+        // Ảnh nhỏ hơn chiều rộng của phiên bản thì phiên bản đó không được sinh, dùng bản FULL
+        return generated.contains(ImageVariant.FULL)
+                ? Optional.of(ImageVariant.FULL)
+                : Optional.empty();
+    }
+
+    public String variantKey(String contentHash, ImageVariant variant) {
+        return StorageKeys.sharded(StorageKeys.MANGA + "/variants/" + variant.getDirectory(), contentHash + ".jpg");
+    }
+
+    /**
+     * Xoá các phiên bản của nội dung, gọi khi blob không còn được tham chiếu
+     * @param contentHash SHA-256 của ảnh gốc
+     * @param variants Các phiên bản đã ghi lại trên blob
+     */
+    public void deleteVariants(String contentHash, Set<ImageVariant> variants) throws IOException {
+        for (ImageVariant variant : variants) {
+            storageBackend.delete(variantKey(contentHash, variant));
+        }
+        fileMetadataCache.invalidateVariants(contentHash);
+    }
+
+    /**
+     * Chuyển các phiên bản sinh ra trước khi chia thư mục (lưu theo tên file) sang key theo nội dung
+     * @param fileName Tên file gốc
+     * @param contentHash SHA-256 của blob mà file trỏ tới
+     * @return true nếu file có phiên bản cũ
+     */
+    public boolean migrateLegacyVariants(String fileName, String contentHash) throws IOException {
+        Set<ImageVariant> migrated = EnumSet.noneOf(ImageVariant.class);
+        for (ImageVariant variant : ImageVariant.values()) {
+            Path legacy = legacyVariantRoot.resolve(variant.getDirectory())
+                    .resolve(StringUtils.stripFilenameExtension(fileName) + ".jpg");
+            if (Files.isReadable(legacy)) {
+                storageBackend.store(variantKey(contentHash, variant), legacy);
+                migrated.add(variant);
+            }
+        }
+        if (migrated.isEmpty()) {
+            return false;
+        }
+        record(contentHash, migrated);
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void generate(FileInfo fileInfo) throws IOException {
+        String contentHash = fileInfo.getContentHash();
+        // Blob dùng chung với một file đã upload trước đó thì phiên bản đã có
+        if (fileBlobRepository.findById(contentHash).map(FileBlob::getVariants).isPresent()) {
+            return;
+        }
+        Resource original = storageBackend.load(fileInfo.getFilePath());
+        Set<ImageVariant> generated = EnumSet.noneOf(ImageVariant.class);
+        BufferedImage source = readImage(original, fileInfo.getName());
+        if (source == null) {
+            // Ghi lại kết quả rỗng để không xử lý lại ảnh này
+            record(contentHash, generated);
+            return;
+        }
+        long originalSize = original.contentLength();
+
+        for (ImageVariant variant : ImageVariant.values()) {
+            int width = variant == ImageVariant.FULL ? source.getWidth() : variant.getWidth();
+            if (width > source.getWidth()) {
+                continue;
+            }
+            int height = Math.max(1, Math.round(source.getHeight() * (width / (float) source.getWidth())));
+            Path temp = Files.createTempFile("variant", ".jpg");
+            try {
+                writeJpeg(resize(source, width, height), temp);
+                // Bản nén lại không nhỏ hơn bản gốc thì không cần giữ
+                if (variant == ImageVariant.FULL && Files.size(temp) >= originalSize) {
+                    continue;
+                }
+                storageBackend.store(variantKey(contentHash, variant), temp);
+                generated.add(variant);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        record(contentHash, generated);
+        log.info("Generated derivatives for {}", fileInfo.getName());
+    }
+
+    /**
+     * Đọc kích thước từ header trước khi giải mã, ảnh quá max-pixels bị bỏ qua
+     * để không cấp phát BufferedImage khổng lồ
+     * @return Ảnh đã giải mã, null nếu định dạng không hỗ trợ hoặc ảnh quá lớn
+     */
+    private BufferedImage readImage(Resource original, String fileName) throws IOException {
+        try (InputStream in = original.getInputStream();
+             ImageInputStream imageIn = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = imageIn == null
+                    ? Collections.emptyIterator()
+                    : ImageIO.getImageReaders(imageIn);
+            if (!readers.hasNext()) {
+                log.info("Skipping derivatives for {}: unsupported image format", fileName);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageIn, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    log.warn("Skipping derivatives for {}: {} pixels exceeds limit", fileName, pixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Ghi các phiên bản đã sinh lên blob. Blob đã bị xoá trong lúc sinh thì các phiên bản là thừa
+     */
+    private void record(String contentHash, Set<ImageVariant> generated) throws IOException {
+        if (fileBlobRepository.updateVariants(contentHash, ImageVariant.toMask(generated)) == 0) {
+            deleteVariants(contentHash, generated);
+            return;
+        }
+        fileMetadataCache.putVariants(contentHash, generated);
+    }
+
+    private BufferedImage resize(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // JPEG không có kênh alpha, nền trong suốt được thay bằng màu trắng
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(jpegQuality);
+        param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+}
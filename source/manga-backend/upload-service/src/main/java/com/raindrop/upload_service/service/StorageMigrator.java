@@ -0,0 +1,160 @@
+package com.raindrop.upload_service.service;
+
+import com.raindrop.upload_service.entity.FileBlob;
+import com.raindrop.upload_service.entity.FileInfo;
+import com.raindrop.upload_service.repository.FileBlobRepository;
+import com.raindrop.upload_service.repository.FileDataRepository;
+import com.raindrop.upload_service.storage.StorageBackend;
+import com.raindrop.upload_service.storage.StorageKeys;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Chuyển dần các file cũ lưu phẳng trong app.upload.manga / app.upload.user sang
+ * key chia thư mục của StorageBackend. Mỗi lượt xử lý một lô nhỏ nên có thể chạy
+ * trong lúc service đang phục vụ; file chỉ bị xoá khỏi vị trí cũ sau khi DB đã trỏ sang key mới.
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.migration.enabled", havingValue = "true")
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+@Slf4j
+public class StorageMigrator {
+    FileDataRepository fileDataRepository;
+    FileBlobRepository fileBlobRepository;
+    StorageBackend storageBackend;
+    FileMetadataCache fileMetadataCache;
+    ImageDerivativeService imageDerivativeService;
+    TransactionTemplate transactionTemplate;
+    Path mangaFolder;
+    int batchSize;
+
+    // Các file lỗi được bỏ qua, lượt sau tiếp tục từ id này
+    @NonFinal
+    long lastId;
+
+    public StorageMigrator(FileDataRepository fileDataRepository,
+                           FileBlobRepository fileBlobRepository,
+                           StorageBackend storageBackend,
+                           FileMetadataCache fileMetadataCache,
+                           ImageDerivativeService imageDerivativeService,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${app.upload.manga}") String mangaFolderPath,
+                           @Value("${app.storage.migration.batch-size:200}") int batchSize) {
+        this.fileDataRepository = fileDataRepository;
+        this.fileBlobRepository = fileBlobRepository;
+        this.storageBackend = storageBackend;
+        this.fileMetadataCache = fileMetadataCache;
+        this.imageDerivativeService = imageDerivativeService;
+        this.transactionTemplate = transactionTemplate;
+        this.mangaFolder = Paths.get(mangaFolderPath).toAbsolutePath().normalize();
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${app.storage.migration.interval:60000}")
+    public void migrateBatch() {
+        List<FileInfo> files = fileDataRepository.findLegacyFiles(lastId, Pageable.ofSize(batchSize));
+        int migrated = 0;
+        for (FileInfo file : files) {
+            lastId = file.getId();
+            try {
+                if (migrate(file)) {
+                    migrated++;
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to migrate {} ({}): {}", file.getName(), file.getFilePath(), e.getMessage());
+            }
+        }
+        if (migrated > 0) {
+            log.info("Migrated {} legacy files to sharded storage", migrated);
+        }
+        if (files.isEmpty()) {
+            // Hết một vòng, lượt sau quét lại từ đầu để thử lại các file đã bị bỏ qua
+            lastId = 0;
+        }
+    }
+
+    /**
+     * Chép file sang key mới rồi chuyển mọi tham chiếu trong một transaction: blob bị khoá
+     * (cùng khoá mà FileBlobService.acquire dùng), chủ sở hữu được đọc lại dưới khoá và đường
+     * dẫn được đổi bằng UPDATE có điều kiện. File cũ chỉ bị xoá sau khi transaction commit.
+     */
+    private boolean migrate(FileInfo file) throws IOException {
+        String legacyPath = file.getFilePath();
+        boolean manga = Paths.get(legacyPath).toAbsolutePath().normalize().startsWith(mangaFolder);
+        String namespace = manga ? StorageKeys.MANGA : StorageKeys.USER;
+        Optional<String> hash = fileBlobRepository.findByFilePath(legacyPath).map(FileBlob::getHash);
+        // Blob dùng hash làm tên giống như khi FileBlobService tạo blob mới
+        String key = StorageKeys.sharded(namespace, hash.orElse(file.getName()));
+
+        Resource legacy;
+        try {
+            legacy = storageBackend.load(legacyPath);
+        } catch (NoSuchFileException e) {
+            // Cùng lô có thể đã chuyển file này qua một FileInfo khác dùng chung blob
+            return false;
+        }
+        try (InputStream in = legacy.getInputStream()) {
+            storageBackend.store(key, in, legacy.contentLength());
+        }
+
+        // null: để lượt sau thử lại, rỗng: không còn FileInfo nào dùng file này
+        List<String> owners = transactionTemplate.execute(status -> {
+            Optional<FileBlob> blob = hash.flatMap(fileBlobRepository::findByHashForUpdate);
+            // Blob đã bị xoá hoặc đã được chuyển. Không xoá bản chép: key theo hash có thể được
+            // một blob mới tạo ngay sau đó dùng lại
+            if (hash.isPresent() && (blob.isEmpty() || !blob.get().getFilePath().equals(legacyPath))) {
+                return null;
+            }
+            List<String> names = fileDataRepository.findNamesByFilePath(legacyPath);
+            // refCount lớn hơn số FileInfo: một upload đã nhận blob nhưng chưa lưu FileInfo
+            // với đường dẫn cũ
+            if (blob.isPresent() && blob.get().getRefCount() != names.size()) {
+                return null;
+            }
+            if (!names.isEmpty()) {
+                fileDataRepository.updateFilePath(legacyPath, key);
+                blob.ifPresent(b -> b.setFilePath(key));
+            }
+            return names;
+        });
+        if (owners == null) {
+            return false;
+        }
+        if (owners.isEmpty()) {
+            // File không qua blob đã bị xoá trong lúc chép, bản chép theo tên file là thừa
+            storageBackend.delete(key);
+            return false;
+        }
+
+        for (String owner : owners) {
+            fileMetadataCache.invalidate(owner);
+        }
+        // Phiên bản được lưu theo nội dung: chỉ file có blob mới ghi lại được, và một bộ là đủ
+        if (manga && hash.isPresent()) {
+            for (String owner : owners) {
+                if (imageDerivativeService.migrateLegacyVariants(owner, hash.get())) {
+                    break;
+                }
+            }
+        }
+        storageBackend.delete(legacyPath);
+        return true;
+    }
+}
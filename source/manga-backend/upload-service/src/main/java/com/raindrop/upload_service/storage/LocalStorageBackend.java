@@ -0,0 +1,101 @@
+package com.raindrop.upload_service.storage;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.util.Map;
+
+/**
+ * Lưu file trên đĩa cục bộ, mỗi namespace nằm trong thư mục cấu hình tương ứng
+ * (app.upload.manga, app.upload.user) và được chia thư mục theo hash.
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "local", matchIfMissing = true)
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class LocalStorageBackend implements StorageBackend {
+    Map<String, Path> roots;
+
+    public LocalStorageBackend(@Value("${app.upload.manga}") String mangaFolderPath,
+                               @Value("${app.upload.user}") String userFolderPath) {
+        this.roots = Map.of(
+                StorageKeys.MANGA, Paths.get(mangaFolderPath),
+                StorageKeys.USER, Paths.get(userFolderPath));
+    }
+
+    @Override
+    public void store(String key, InputStream in, long size) throws IOException {
+        Path target = prepare(key);
+        Path temp = Files.createTempFile(target.getParent(), ".upload", ".tmp");
+        try {
+            Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public void store(String key, Path source) throws IOException {
+        Files.move(source, prepare(key), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public void store(String key, MultipartFile file) throws IOException {
+        // Servlet container đổi tên file tạm khi có thể nên không phải copy lại nội dung
+        file.transferTo(new File(prepare(key).toString()));
+    }
+
+    @Override
+    public Path createStagingFile(String namespace) throws IOException {
+        Path staging = roots.get(namespace).resolve(".staging");
+        Files.createDirectories(staging);
+        return Files.createTempFile(staging, "upload", ".tmp");
+    }
+
+    @Override
+    public Resource load(String key) throws IOException {
+        Path path = resolve(key);
+        if (!Files.isReadable(path)) {
+            throw new NoSuchFileException(path.toString());
+        }
+        return new FileSystemResource(path);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.isReadable(resolve(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    private Path prepare(String key) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        return target;
+    }
+
+    private Path resolve(String key) {
+        int slash = key.indexOf('/');
+        if (slash > 0) {
+            Path root = roots.get(key.substring(0, slash));
+            if (root != null) {
+                return root.resolve(key.substring(slash + 1));
+            }
+        }
+        // File cũ lưu bằng đường dẫn đầy đủ
+        return Paths.get(key);
+    }
+}
@@ -0,0 +1,59 @@
+package com.raindrop.upload_service.storage;
+
+import org.springframework.core.io.AbstractResource;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+
+import java.io.InputStream;
+
+/**
+ * Resource đọc một object S3; mỗi lần mở stream là một request GetObject
+ */
+public class S3ObjectResource extends AbstractResource {
+    private final S3Client s3Client;
+    private final String bucket;
+    private final String key;
+    private final long contentLength;
+    private final long lastModified;
+
+    public S3ObjectResource(S3Client s3Client, String bucket, String key, long contentLength, long lastModified) {
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+        this.key = key;
+        this.contentLength = contentLength;
+        this.lastModified = lastModified;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return s3Client.getObject(GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .build());
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public long lastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public String getFilename() {
+        return key.substring(key.lastIndexOf('/') + 1);
+    }
+
+    @Override
+    public String getDescription() {
+        return "S3 object [" + bucket + "/" + key + "]";
+    }
+}
@@ -0,0 +1,141 @@
+package com.raindrop.upload_service.storage;
+
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Lưu file trên object store tương thích S3 (AWS S3, MinIO, ...).
+ * Key cũ (đường dẫn tuyệt đối chưa được migrate) vẫn được đọc/xoá từ đĩa cục bộ.
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "s3")
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+@Slf4j
+public class S3StorageBackend implements StorageBackend {
+    S3Client s3Client;
+    String bucket;
+
+    public S3StorageBackend(@Value("${app.storage.s3.bucket}") String bucket,
+                            @Value("${app.storage.s3.region:us-east-1}") String region,
+                            @Value("${app.storage.s3.endpoint:}") String endpoint,
+                            @Value("${app.storage.s3.access-key:}") String accessKey,
+                            @Value("${app.storage.s3.secret-key:}") String secretKey,
+                            @Value("${app.storage.s3.path-style-access:false}") boolean pathStyleAccess) {
+        AwsCredentialsProvider credentials = StringUtils.hasText(accessKey)
+                ? StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey))
+                : DefaultCredentialsProvider.create();
+
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(S3Configuration.builder()
+                        .pathStyleAccessEnabled(pathStyleAccess)
+                        .build());
+        // Endpoint riêng cho MinIO/LocalStack
+        if (StringUtils.hasText(endpoint)) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        this.s3Client = builder.build();
+        this.bucket = bucket;
+    }
+
+    @Override
+    public void store(String key, InputStream in, long size) {
+        s3Client.putObject(PutObjectRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .contentLength(size)
+                        .build(),
+                RequestBody.fromInputStream(in, size));
+    }
+
+    @Override
+    public void store(String key, Path source) throws IOException {
+        s3Client.putObject(PutObjectRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .build(),
+                RequestBody.fromFile(source));
+        Files.deleteIfExists(source);
+    }
+
+    @Override
+    public Resource load(String key) throws IOException {
+        if (!StorageKeys.isManaged(key)) {
+            Path path = Paths.get(key);
+            if (!Files.isReadable(path)) {
+                throw new NoSuchFileException(key);
+            }
+            return new FileSystemResource(path);
+        }
+        try {
+            HeadObjectResponse head = s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .build());
+            return new S3ObjectResource(s3Client, bucket, key,
+                    head.contentLength(), head.lastModified().toEpochMilli());
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        if (!StorageKeys.isManaged(key)) {
+            return Files.isReadable(Paths.get(key));
+        }
+        try {
+            s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .build());
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        if (!StorageKeys.isManaged(key)) {
+            Files.deleteIfExists(Paths.get(key));
+            return;
+        }
+        s3Client.deleteObject(DeleteObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .build());
+    }
+
+    @PreDestroy
+    public void close() {
+        s3Client.close();
+    }
+}
@@ -0,0 +1,63 @@
+package com.raindrop.upload_service.storage;
+
+import org.springframework.core.io.Resource;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Nơi lưu nội dung file. Key có dạng {@code <namespace>/ab/cd/<tên>} (xem {@link StorageKeys});
+ * key không thuộc namespace nào là đường dẫn tuyệt đối của file cũ lưu phẳng trên đĩa.
+ */
+public interface StorageBackend {
+
+    /**
+     * Ghi nội dung từ stream vào key
+     * @param key Key đích
+     * @param in Nội dung
+     * @param size Kích thước nội dung (byte)
+     */
+    void store(String key, InputStream in, long size) throws IOException;
+
+    /**
+     * Chuyển một file tạm vào key; file nguồn không còn tồn tại sau khi gọi
+     * @param key Key đích
+     * @param source File tạm
+     */
+    void store(String key, Path source) throws IOException;
+
+    /**
+     * Tạo file tạm để nhận nội dung trước khi biết key. Backend cục bộ đặt file này
+     * cùng ổ đĩa với namespace để {@link #store(String, Path)} chỉ cần đổi tên.
+     * @param namespace Vùng lưu trữ sẽ chứa file
+     * @return File tạm rỗng
+     */
+    default Path createStagingFile(String namespace) throws IOException {
+        return Files.createTempFile("upload", ".tmp");
+    }
+
+    /**
+     * Ghi file upload vào key
+     * @param key Key đích
+     * @param file File upload
+     */
+    default void store(String key, MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            store(key, in, file.getSize());
+        }
+    }
+
+    /**
+     * Mở nội dung của key, ném NoSuchFileException nếu không tồn tại
+     * @param key Key cần đọc
+     * @return Resource đọc nội dung
+     */
+    Resource load(String key) throws IOException;
+
+    boolean exists(String key);
+
+    void delete(String key) throws IOException;
+}
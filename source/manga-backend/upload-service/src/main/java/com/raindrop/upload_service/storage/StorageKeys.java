@@ -0,0 +1,44 @@
+package com.raindrop.upload_service.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Tạo key lưu trữ chia thư mục theo tiền tố hash ({@code manga/ab/cd/<tên>})
+ * để mỗi thư mục chỉ chứa một lượng file nhỏ.
+ */
+public final class StorageKeys {
+    public static final String MANGA = "manga";
+    public static final String USER = "user";
+
+    private StorageKeys() {
+    }
+
+    /**
+     * @param namespace Vùng lưu trữ, có thể có thư mục con (ví dụ "manga/variants/thumb")
+     * @param name Tên file
+     * @return Key dạng namespace/ab/cd/name
+     */
+    public static String sharded(String namespace, String name) {
+        String hash = sha256Hex(name);
+        return namespace + "/" + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + name;
+    }
+
+    /**
+     * Key thuộc một namespace, ngược lại là đường dẫn file cũ lưu phẳng
+     */
+    public static boolean isManaged(String key) {
+        return key.startsWith(MANGA + "/") || key.startsWith(USER + "/");
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.raindrop.upload_service.controller;
+
+import com.raindrop.upload_service.entity.FileData;
+import com.raindrop.upload_service.service.FileDownloadMetrics;
+import com.raindrop.upload_service.service.FileService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Header cache của GET /files/{fileName}: bản thu nhỏ và ảnh gốc được cache vĩnh viễn,
+ * ảnh gốc trả tạm cho URL thu nhỏ thì phải hỏi lại server
+ */
+class FileControllerTest {
+    private static final String ETAG = "\"abc123\"";
+    private static final long LAST_MODIFIED = 1_700_000_000_000L;
+
+    FileService fileService = mock(FileService.class);
+    MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(fileService.openContent(any())).thenAnswer(invocation -> ((FileData) invocation.getArgument(0)).getResource());
+        mockMvc = MockMvcBuilders.standaloneSetup(new FileController(fileService, mock(FileDownloadMetrics.class)))
+                .build();
+    }
+
+    @Test
+    void originalIsImmutable() throws Exception {
+        when(fileService.read("a.jpg", null)).thenReturn(fileData(true));
+
+        mockMvc.perform(get("/files/a.jpg"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("immutable")))
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG));
+    }
+
+    @Test
+    void missingVariantFallbackIsRevalidated() throws Exception {
+        when(fileService.read("a.jpg", 320)).thenReturn(fileData(false));
+
+        mockMvc.perform(get("/files/a.jpg").param("w", "320"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("no-cache")))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, not(containsString("immutable"))))
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG));
+    }
+
+    @Test
+    void notModifiedFallbackIsRevalidated() throws Exception {
+        when(fileService.read("a.jpg", 320)).thenReturn(fileData(false));
+
+        mockMvc.perform(get("/files/a.jpg").param("w", "320").header(HttpHeaders.IF_NONE_MATCH, ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("no-cache")))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, not(containsString("immutable"))));
+        // 304 chỉ dựa vào metadata, không mở nội dung file
+        verify(fileService, never()).openContent(any());
+    }
+
+    private FileData fileData(boolean immutable) {
+        return FileData.builder()
+                .contentType("image/jpeg")
+                .resource(new ByteArrayResource(new byte[]{1, 2, 3}))
+                .eTag(ETAG)
+                .lastModified(LAST_MODIFIED)
+                .immutable(immutable)
+                .build();
+    }
+}
@@ -0,0 +1,199 @@
+package com.raindrop.upload_service.storage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.Resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Ghi, đọc, kiểm tra và xoá object qua S3StorageBackend. Mặc định chạy với một S3 giả lập
+ * trong tiến trình; đặt -Ds3.test.endpoint=http://localhost:9000 để chạy với MinIO của
+ * docker-compose (bucket được minio-init tạo sẵn).
+ */
+class S3StorageBackendTest {
+    private static final String BUCKET = "manga-uploads";
+
+    private FakeS3Server fakeS3;
+    private S3StorageBackend backend;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        String endpoint = System.getProperty("s3.test.endpoint");
+        if (endpoint == null) {
+            fakeS3 = new FakeS3Server();
+            endpoint = fakeS3.endpoint();
+        }
+        backend = new S3StorageBackend(BUCKET, "us-east-1", endpoint, "minioadmin", "minioadmin", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        backend.close();
+        if (fakeS3 != null) {
+            fakeS3.stop();
+        }
+    }
+
+    @Test
+    void storeLoadExistsDeleteRoundTrip() throws IOException {
+        String key = StorageKeys.sharded(StorageKeys.MANGA, "abcdef0123456789");
+        byte[] content = "page-1".getBytes(StandardCharsets.UTF_8);
+
+        backend.store(key, new ByteArrayInputStream(content), content.length);
+
+        assertThat(backend.exists(key)).isTrue();
+        Resource resource = backend.load(key);
+        assertThat(resource.contentLength()).isEqualTo(content.length);
+        assertThat(resource.lastModified()).isPositive();
+        try (InputStream in = resource.getInputStream()) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+
+        backend.delete(key);
+        assertThat(backend.exists(key)).isFalse();
+        assertThatThrownBy(() -> backend.load(key)).isInstanceOf(NoSuchFileException.class);
+    }
+
+    @Test
+    void storeFromStagingFileRemovesSource() throws IOException {
+        String key = StorageKeys.sharded(StorageKeys.USER, "0123456789abcdef");
+        Path staged = Files.createTempFile("upload", ".tmp");
+        Files.writeString(staged, "avatar");
+
+        backend.store(key, staged);
+
+        assertThat(staged).doesNotExist();
+        try (InputStream in = backend.load(key).getInputStream()) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("avatar");
+        }
+        backend.delete(key);
+    }
+
+    /**
+     * S3 tối giản (path-style, một bucket) đủ cho PUT/HEAD/GET/DELETE object
+     */
+    private static final class FakeS3Server {
+        private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+        private final HttpServer server;
+        private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+
+        FakeS3Server() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/", this::handle);
+            server.start();
+        }
+
+        String endpoint() {
+            return "http://127.0.0.1:" + server.getAddress().getPort();
+        }
+
+        void stop() {
+            server.stop(0);
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            try {
+                String path = exchange.getRequestURI().getPath();
+                String key = path.substring(path.indexOf('/', 1) + 1);
+                byte[] body = exchange.getRequestBody().readAllBytes();
+                switch (exchange.getRequestMethod()) {
+                    case "PUT" -> {
+                        objects.put(key, new StoredObject(decodePayload(exchange, body), Instant.now()));
+                        exchange.sendResponseHeaders(200, -1);
+                    }
+                    case "HEAD", "GET" -> {
+                        StoredObject object = objects.get(key);
+                        if (object == null) {
+                            sendNoSuchKey(exchange);
+                            return;
+                        }
+                        exchange.getResponseHeaders().set("Last-Modified", HTTP_DATE.format(object.lastModified()));
+                        exchange.getResponseHeaders().set("ETag", "\"" + Integer.toHexString(object.content().length) + "\"");
+                        if (exchange.getRequestMethod().equals("HEAD")) {
+                            exchange.getResponseHeaders().set("Content-Length", String.valueOf(object.content().length));
+                            exchange.sendResponseHeaders(200, -1);
+                        } else {
+                            exchange.sendResponseHeaders(200, object.content().length);
+                            exchange.getResponseBody().write(object.content());
+                        }
+                    }
+                    case "DELETE" -> {
+                        objects.remove(key);
+                        exchange.sendResponseHeaders(204, -1);
+                    }
+                    default -> exchange.sendResponseHeaders(405, -1);
+                }
+            } finally {
+                exchange.close();
+            }
+        }
+
+        private void sendNoSuchKey(HttpExchange exchange) throws IOException {
+            if (exchange.getRequestMethod().equals("HEAD")) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            byte[] error = "<Error><Code>NoSuchKey</Code><Message>Not found</Message></Error>"
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/xml");
+            exchange.sendResponseHeaders(404, error.length);
+            exchange.getResponseBody().write(error);
+        }
+
+        /**
+         * Bỏ phần khung aws-chunked (kích thước hex;chữ ký) mà SDK dùng khi gửi qua HTTP
+         */
+        private static byte[] decodePayload(HttpExchange exchange, byte[] body) {
+            String contentSha = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+            if (contentSha == null || !contentSha.startsWith("STREAMING-")) {
+                return body;
+            }
+            ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+            int position = 0;
+            while (position < body.length) {
+                int lineEnd = indexOfCrlf(body, position);
+                String header = new String(body, position, lineEnd - position, StandardCharsets.US_ASCII);
+                int size = Integer.parseInt(header.split(";")[0], 16);
+                if (size == 0) {
+                    break;
+                }
+                decoded.write(body, lineEnd + 2, size);
+                position = lineEnd + 2 + size + 2;
+            }
+            return decoded.toByteArray();
+        }
+
+        private static int indexOfCrlf(byte[] body, int from) {
+            for (int i = from; i < body.length - 1; i++) {
+                if (body[i] == '\r' && body[i + 1] == '\n') {
+                    return i;
+                }
+            }
+            return body.length;
+        }
+
+        private record StoredObject(byte[] content, Instant lastModified) {
+        }
+    }
+}
@@ -1,12 +1,15 @@
 import React, { useState, useRef, useEffect } from 'react';
 import { Link, useNavigate, useLocation } from 'react-router-dom';
 import { useAuth } from '../contexts/AuthContext';
+import mangaService from '../services/manga-service';
+import { MangaSuggestionResponse } from '../interfaces/models/manga';
 import '@fortawesome/fontawesome-free/css/all.min.css';
 
 const NewHeader = () => {
   const [isSearchOpen, setIsSearchOpen] = useState(false);
   const [isMenuOpen, setIsMenuOpen] = useState(false);
   const [searchKeyword, setSearchKeyword] = useState('');
+  const [suggestions, setSuggestions] = useState<MangaSuggestionResponse[]>([]);
   const [isScrolled, setIsScrolled] = useState(false);
   const searchInputRef = useRef<HTMLInputElement>(null);
   const menuRef = useRef<HTMLDivElement>(null);
@@ -41,6 +44,26 @@ const NewHeader = () => {
     }
   }, [isSearchOpen]);
 
+  // Lấy gợi ý sau khi người dùng ngừng gõ một chút
+  useEffect(() => {
+    const keyword = searchKeyword.trim();
+    if (!keyword) {
+      setSuggestions([]);
+      return;
+    }
+    let cancelled = false;
+    const timer = setTimeout(async () => {
+      const result = await mangaService.suggestManga(keyword);
+      if (!cancelled) {
+        setSuggestions(result);
+      }
+    }, 150);
+    return () => {
+      cancelled = true;
+      clearTimeout(timer);
+    };
+  }, [searchKeyword]);
+
   const handleSearchClick = () => {
     setIsSearchOpen(true);
   };
@@ -58,6 +81,12 @@ const NewHeader = () => {
     }
   };
 
+  const handleSuggestionClick = (mangaId: string) => {
+    navigate(`/mangas/${mangaId}`);
+    setIsSearchOpen(false);
+    setSearchKeyword('');
+  };
+
   const handleSearchInputChange = (e: React.ChangeEvent<HTMLInputElement>) => {
     setSearchKeyword(e.target.value);
   };
@@ -254,6 +283,29 @@ const NewHeader = () => {
               >
                 <i className="fas fa-search"></i>
               </button>
+              {suggestions.length > 0 && (
+                <ul className="absolute left-0 right-0 mt-2 bg-gray-800 rounded-lg shadow-lg overflow-hidden">
+                  {suggestions.map((manga) => (
+                    <li key={manga.id}>
+                      <button
+                        type="button"
+                        onClick={() => handleSuggestionClick(manga.id)}
+                        className="w-full flex items-center gap-3 px-4 py-2 text-left text-gray-300 hover:bg-gray-700 hover:text-white transition-colors"
+                      >
+                        <img
+                          src={manga.coverUrl || '/images/default-manga-cover.jpg'}
+                          alt={manga.title}
+                          className="w-8 h-11 object-cover rounded"
+                        />
+                        <span className="flex flex-col">
+                          <span className="text-sm font-medium">{manga.title}</span>
+                          {manga.author && <span className="text-xs text-gray-400">{manga.author}</span>}
+                        </span>
+                      </button>
+                    </li>
+                  ))}
+                </ul>
+              )}
             </form>
           </div>
         </>
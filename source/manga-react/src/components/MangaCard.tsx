@@ -22,7 +22,7 @@ const MangaCard: React.FC<MangaCardProps> = ({ manga }) => {
                 className="block rounded-lg shadow hover:shadow-lg transition-shadow duration-200 overflow-hidden relative pb-[150%]"
             >
                 <img
-                    src={"http://localhost:8888/api/v1/upload/files/"+manga.image}
+                    src={"http://localhost:8888/api/v1/upload/files/"+manga.image+"?w=320"}
                     alt={manga.title}
                     loading="lazy"
                     className="absolute inset-0 w-full h-full object-cover"
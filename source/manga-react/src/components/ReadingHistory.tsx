@@ -99,7 +99,7 @@ const ReadingHistory = () => {
                                             <img 
                                                 className="h-full w-full object-cover transition duration-500 group-hover:scale-[102%]" 
                                                 alt={item.title} 
-                                                src={`http://localhost:8888/api/v1/upload/files/${item.coverUrl}`} 
+                                                src={`http://localhost:8888/api/v1/upload/files/${item.coverUrl}?w=320`} 
                                             />
                                         </div>
                                     </div>
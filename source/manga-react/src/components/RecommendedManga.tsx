@@ -106,7 +106,7 @@ const RecommendedManga = () => {
                                                     <div className="relative h-full w-full">
                                                         <div className="absolute bottom-0 left-0 z-[1] h-3/5 w-full bg-gradient-to-t from-gray-900 from-[15%] to-transparent transition-all duration-500 group-hover:h-3/4"></div>
                                                         <img
-                                                            src={`http://localhost:8888/api/v1/upload/files/${manga.coverUrl}`}
+                                                            src={`http://localhost:8888/api/v1/upload/files/${manga.coverUrl}?w=320`}
                                                             className="h-full w-full object-cover transition duration-500 group-hover:scale-[102%]"
                                                             alt={manga.title}
                                                             onError={(e) => {
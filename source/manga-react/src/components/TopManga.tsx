@@ -9,13 +9,14 @@ interface MangaData {
     loves?: number;
 }
 
-type TabType = 'top' | 'favorite' | 'new';
+type TabType = 'trending' | 'top' | 'favorite' | 'new';
 
 const TopManga = () => {
+    const [trendingMangas, setTrendingMangas] = useState<MangaData[]>([]);
     const [topViewMangas, setTopViewMangas] = useState<MangaData[]>([]);
     const [topLoveMangas, setTopLoveMangas] = useState<MangaData[]>([]);
     const [newMangas, setNewMangas] = useState<MangaData[]>([]);
-    const [activeTab, setActiveTab] = useState<TabType>('top');
+    const [activeTab, setActiveTab] = useState<TabType>('trending');
     const [loading, setLoading] = useState<boolean>(true);
 
     useEffect(() => {
@@ -23,6 +24,10 @@ const TopManga = () => {
             try {
                 setLoading(true);
 
+                // Lấy top 5 truyện thịnh hành trong 24 giờ qua, views là lượt xem trong 24 giờ
+                const trendingResult = await mangaService.getTrendingMangas('24h', 5);
+                setTrendingMangas(trendingResult.map(item => ({...item.manga, views: item.views})));
+
                 // Lấy top 5 truyện có lượt xem cao nhất
                 const topViewsResult = await mangaService.getMangaSummaries(0, 5, "views,desc");
                 if (topViewsResult) {
@@ -73,7 +78,7 @@ const TopManga = () => {
                             >
                                 <img
                                     className="h-full w-full object-cover"
-                                    src={`http://localhost:8888/api/v1/upload/files/${manga.coverUrl}`}
+                                    src={`http://localhost:8888/api/v1/upload/files/${manga.coverUrl}?w=320`}
                                     alt={manga.title}
                                     onError={(e) => {
                                         const target = e.target as HTMLImageElement;
@@ -130,6 +135,14 @@ const TopManga = () => {
     // Hàm lấy dữ liệu và icon cho tab đang active
     const getActiveTabData = () => {
         switch (activeTab) {
+            case 'trending':
+                return {
+                    data: trendingMangas,
+                    icon: starIcon,
+                    title: "Thịnh hành 24 giờ",
+                    statIcon: viewIcon,
+                    statValue: (manga: MangaData) => `${manga.views?.toLocaleString() || 0} lượt xem hôm nay`
+                };
             case 'top':
                 return {
                     data: topViewMangas,
@@ -180,6 +193,14 @@ const TopManga = () => {
 
             <div className="w-full">
                 <div className="flex rounded-lg overflow-hidden mb-6 bg-gray-800 border border-gray-700">
+                    <button
+                        type="button"
+                        className={`flex-1 flex items-center justify-center gap-2 py-3 text-sm font-medium transition-colors ${activeTab === 'trending' ? 'bg-purple-600 text-white' : 'text-gray-300 hover:bg-gray-700'}`}
+                        onClick={() => setActiveTab('trending')}
+                    >
+                        {starIcon}
+                        Thịnh hành
+                    </button>
                     <button
                         type="button"
                         className={`flex-1 flex items-center justify-center gap-2 py-3 text-sm font-medium transition-colors ${activeTab === 'top' ? 'bg-purple-600 text-white' : 'text-gray-300 hover:bg-gray-700'}`}
@@ -20,6 +20,8 @@ export interface MangaResponse {
     author: string;
     loves: number;
     views: number;
+    // Số người đọc khác nhau (ước lượng), chỉ có khi lấy chi tiết manga
+    uniqueReaders?: number;
     coverUrl?: string;
     description: string;
     genres: string[];
@@ -35,11 +37,44 @@ export interface AdvancedSearchRequest {
     title?: string;
     author?: string;
     genres?: string[];
+    // ANY: có ít nhất một thể loại, ALL: có đủ các thể loại
+    genreMode?: 'ANY' | 'ALL';
+    excludedGenres?: string[];
     yearOfRelease?: number;
     status?: MangaStatus;
     orderBy?: string;
 }
 
+// Facet Count Response
+export interface FacetCountResponse {
+    value: string;
+    count: number;
+}
+
+// Search Facets Response
+export interface SearchFacetsResponse {
+    total: number;
+    genres: FacetCountResponse[];
+    statuses: FacetCountResponse[];
+    years: FacetCountResponse[];
+}
+
+// Manga Suggestion Response
+export interface MangaSuggestionResponse {
+    id: string;
+    title: string;
+    author?: string;
+    coverUrl?: string;
+}
+
+// Trending Manga Response
+export interface TrendingMangaResponse {
+    manga: MangaSummaryResponse;
+    // Số lượt xem trong khoảng thời gian
+    views: number;
+    score: number;
+}
+
 // Manga Summary Response
 export interface MangaSummaryResponse {
     id: string;
@@ -72,7 +107,10 @@ export interface ChapterResponse {
     chapterNumber: number;
     title: string;
     views: number;
-    pages: ChapterPageResponse[];
+    // Số người đọc khác nhau (ước lượng), chỉ có khi lấy chi tiết chapter
+    uniqueReaders?: number;
+    // Chỉ có khi lấy chi tiết chapter, danh sách chapter không kèm trang
+    pages?: ChapterPageResponse[];
     mangaId: string;
     updatedAt: string;
 }
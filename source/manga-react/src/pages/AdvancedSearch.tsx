@@ -9,7 +9,7 @@ import {
     faChevronUp
 } from '@fortawesome/free-solid-svg-icons';
 import mangaService from '../services/manga-service.ts';
-import { AdvancedSearchRequest, GenreResponse, MangaResponse, MangaStatus, MangaStatusDisplayNames } from '../interfaces/models/manga.ts';
+import { AdvancedSearchRequest, GenreResponse, MangaResponse, MangaStatus, MangaStatusDisplayNames, SearchFacetsResponse, FacetCountResponse } from '../interfaces/models/manga.ts';
 const AdvancedSearch: React.FC = () => {
     const location = useLocation();
     const navigate = useNavigate();
@@ -39,6 +39,8 @@ const AdvancedSearch: React.FC = () => {
 
     // State cho danh sách thể loại
     const [genres, setGenres] = useState<GenreResponse[]>([]);
+    // Số truyện theo thể loại/tình trạng cho điều kiện tìm kiếm hiện tại
+    const [facets, setFacets] = useState<SearchFacetsResponse | null>(null);
 
     // State cho việc hiển thị/ẩn bộ lọc nâng cao
     const [showAdvancedFilters, setShowAdvancedFilters] = useState<boolean>(false);
@@ -58,6 +60,10 @@ const AdvancedSearch: React.FC = () => {
         { value: 'views,desc', label: 'Xem nhiều nhất' }
     ];
 
+    // Lấy số đếm của một giá trị trong nhóm facet, 0 nếu không có
+    const facetCount = (counts: FacetCountResponse[], value: string) =>
+        counts.find(facet => facet.value === value)?.count ?? 0;
+
     // Các tùy chọn cho dropdown
 
     // Lấy danh sách thể loại và tìm kiếm ban đầu nếu có từ khóa
@@ -131,7 +137,11 @@ const AdvancedSearch: React.FC = () => {
                 orderBy: orderBy
             };
 
-            const results = await mangaService.advancedSearch(searchRequest, page, 10);
+            const [results, facetsResult] = await Promise.all([
+                mangaService.advancedSearch(searchRequest, page, 10),
+                mangaService.getSearchFacets(searchRequest)
+            ]);
+            setFacets(facetsResult);
             if (results) {
                 if (results.content.length === 0) {
                     // Không tìm thấy kết quả nào
@@ -356,6 +366,7 @@ const AdvancedSearch: React.FC = () => {
                                                         className={`px-2 py-1 text-sm rounded cursor-pointer ${selectedGenres.includes(genre.name) ? 'bg-purple-600 text-white' : 'hover:bg-gray-700'}`}
                                                     >
                                                         {genre.name}
+                                                        {facets && ` (${facetCount(facets.genres, genre.name)})`}
                                                     </div>
                                                 ))}
                                             </div>
@@ -401,6 +412,7 @@ const AdvancedSearch: React.FC = () => {
                                     {statusOptions.map((option) => (
                                         <option key={option.value} value={option.value}>
                                             {option.label}
+                                            {facets && option.value !== '' && ` (${facetCount(facets.statuses, option.value)})`}
                                         </option>
                                     ))}
                                 </select>
@@ -472,7 +484,7 @@ const AdvancedSearch: React.FC = () => {
                                         <a href={`/mangas/${manga.id}`} className="block">
                                             <div className="relative pb-[150%]">
                                                 <img
-                                                    src={"http://localhost:8888/api/v1/upload/files/"+manga.coverUrl || '/images/default-manga-cover.jpg'}
+                                                    src={"http://localhost:8888/api/v1/upload/files/"+manga.coverUrl+"?w=320" || '/images/default-manga-cover.jpg'}
                                                     alt={manga.title}
                                                     className="absolute inset-0 w-full h-full object-cover"
                                                 />
@@ -237,7 +237,7 @@ const Chapter: React.FC = () => {
               {<span>{chapter.title}</span>}
             </div>
             <div className="mt-1 text-sm text-gray-400">
-              <FontAwesomeIcon icon={faEye} className="mr-1" /> {chapter.views || 0} lượt xem
+              <FontAwesomeIcon icon={faEye} className="mr-1" /> {chapter.views || 0} lượt xem · {chapter.uniqueReaders || 0} người đọc
             </div>
           </h1>
 
@@ -300,7 +300,7 @@ const Chapter: React.FC = () => {
                 className="w-full mb-1"
               >
                 <img
-                  src={`http://localhost:8888/api/v1/upload/files/${page.pageUrl}`}
+                  src={`http://localhost:8888/api/v1/upload/files/${page.pageUrl}?w=960`}
                   alt={`Page ${page.index + 1}`}
                   className="w-full h-auto mx-auto"
                   loading="lazy"
@@ -84,7 +84,7 @@ const FavoriteList: React.FC = () => {
                   <div className="w-[100px] h-[150px] shrink-0">
                     <a href={`/mangas/${favorite.mangaId}`} className="block h-full">
                       <img
-                        src={favorite.mangaCoverUrl ? `http://localhost:8888/api/v1/upload/files/${favorite.mangaCoverUrl}` : '/images/default-manga-cover.jpg'}
+                        src={favorite.mangaCoverUrl ? `http://localhost:8888/api/v1/upload/files/${favorite.mangaCoverUrl}?w=320` : '/images/default-manga-cover.jpg'}
                         className="h-full w-full object-cover transition duration-500 group-hover:scale-[102%]"
                         alt={favorite.mangaTitle}
                         onError={(e) => {
@@ -196,6 +196,10 @@ const MangaDetail: React.FC = () => {
                             <span className="flex items-center">
                   <FontAwesomeIcon icon={faEye} className="mr-2 text-blue-500"/>
                   <span className="text-white">{manga.views || 0}</span>
+                </span>
+                            <span className="flex items-center" title="Số người đọc">
+                  <FontAwesomeIcon icon={faUser} className="mr-2 text-green-500"/>
+                  <span className="text-white">{manga.uniqueReaders || 0}</span>
                 </span>
                             <span className="flex items-center">
                   <FontAwesomeIcon icon={faComment} className="mr-2 text-yellow-500"/>
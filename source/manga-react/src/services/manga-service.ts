@@ -7,6 +7,9 @@ import {
     GenreResponse,
     PageResponse,
     MangaSummaryResponse,
+    MangaSuggestionResponse,
+    TrendingMangaResponse,
+    SearchFacetsResponse,
     AdvancedSearchRequest
 } from "../interfaces/models/manga";
 
@@ -204,6 +207,50 @@ class MangaService {
         }
     }
 
+    /**
+     * Lấy danh sách manga thịnh hành theo lượt xem gần đây
+     * @param window Khoảng thời gian: '24h' hoặc '7d'
+     * @param limit Số manga cần lấy
+     * @returns Danh sách manga thịnh hành, rỗng nếu thất bại
+     */
+    async getTrendingMangas(window: '24h' | '7d' = '24h', limit: number = 10): Promise<TrendingMangaResponse[]> {
+        try {
+            const url = `/mangas/trending?window=${window}&limit=${limit}`;
+            const apiResponse = await mangaHttpClient.get<ApiResponse<TrendingMangaResponse[]>>(url);
+
+            if (apiResponse.code !== 2000) {
+                return [];
+            }
+
+            return apiResponse.result;
+        } catch (error) {
+            console.error(`Lỗi lấy danh sách manga thịnh hành (${window}):`, error);
+            return [];
+        }
+    }
+
+    /**
+     * Lấy gợi ý manga khi đang gõ tìm kiếm
+     * @param query Chuỗi đang gõ
+     * @param limit Số gợi ý tối đa
+     * @returns Danh sách gợi ý, rỗng nếu thất bại
+     */
+    async suggestManga(query: string, limit: number = 8): Promise<MangaSuggestionResponse[]> {
+        try {
+            const url = `/mangas/suggest?q=${encodeURIComponent(query)}&limit=${limit}`;
+            const apiResponse = await mangaHttpClient.get<ApiResponse<MangaSuggestionResponse[]>>(url);
+
+            if (apiResponse.code !== 2000) {
+                return [];
+            }
+
+            return apiResponse.result;
+        } catch (error) {
+            console.error(`Lỗi lấy gợi ý manga với từ khóa '${query}':`, error);
+            return [];
+        }
+    }
+
     /**
      * Tìm kiếm manga theo từ khóa
      * @param keyword Từ khóa tìm kiếm
@@ -306,6 +353,29 @@ class MangaService {
             return null;
         }
     }
+
+    /**
+     * Đếm số manga theo thể loại, tình trạng và năm cho điều kiện tìm kiếm nâng cao
+     * @param searchRequest Điều kiện tìm kiếm
+     * @returns Số đếm theo từng nhóm hoặc null nếu thất bại
+     */
+    async getSearchFacets(searchRequest: AdvancedSearchRequest): Promise<SearchFacetsResponse | null> {
+        try {
+            const apiResponse = await mangaHttpClient.post<ApiResponse<SearchFacetsResponse>>(
+                '/mangas/advanced-search/facets',
+                searchRequest
+            );
+
+            if (apiResponse.code !== 2000) {
+                return null;
+            }
+
+            return apiResponse.result;
+        } catch (error) {
+            console.error("Lỗi lấy số đếm tìm kiếm:", error);
+            return null;
+        }
+    }
 }
 
 export default new MangaService();